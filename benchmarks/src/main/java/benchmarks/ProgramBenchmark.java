@@ -0,0 +1,51 @@
+package benchmarks;
+
+import inhabitants_of_the_world.Program;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import randomizing.RandomStream;
+import world.Parameters;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of Program.mutation with the mutation probabilities of World.
+ *
+ * @author Adam Al-Hosam
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProgramBenchmark {
+    @Param({"4", "16", "64"})
+    public int genome_length;
+
+    private Parameters parameters;
+    private Program program;
+    private RandomStream random;
+
+    @Setup(Level.Trial)
+    public void createProgram() {
+        parameters = World.createParameters(genome_length, 0.1, 1, true, "");
+        program = new Program(World.genome(genome_length));
+        random = new RandomStream(42);
+    }
+
+    @Benchmark
+    public Program mutation() {
+        return program.mutation(parameters, random);
+    }
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import inhabitants_of_the_world.Rob;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import world.Field;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of Rob.executeTheProgram - a single rob executing its program
+ * EXECUTIONS times on a warmed-up board without churn (see World). The rob
+ * walks around, eats and pays for its program, and since its energy is
+ * below 2^24, it's paid exactly and the outcomes can be cached, like in
+ * real simulations. Every measurement starts from a freshly created world,
+ * so the rob's energy and the food are the same each time.
+ *
+ * @author Adam Al-Hosam
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = RobBenchmark.EXECUTIONS)
+@Measurement(iterations = 10, batchSize = RobBenchmark.EXECUTIONS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RobBenchmark {
+    // number of executions measured, the rob can pay for all of them
+    // (World.STEADY_ENERGY is more than EXECUTIONS * 64)
+    static final int EXECUTIONS = 100_000;
+
+    @Param({"4", "16", "64"})
+    public int genome_length;
+
+    private World world;
+    private Rob rob;
+
+    @Setup(Level.Iteration)
+    public void createWorld() {
+        world = World.withoutChurn(64, 0.05, genome_length, "", 10);
+        rob = null;
+        for (int row = 0; rob == null; row++) {
+            for (int column = 0; column < 64 && rob == null; column++) {
+                Field field = world.board.getField(row, column);
+                if (field.getRobCount() > 0) {
+                    rob = field.robsCopyArray()[0];
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public float executeTheProgram() {
+        rob.executeTheProgram(world.parameters, world.board);
+        return rob.getEnergy();
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of whole rounds (Board.wykonajTure and collecting the stats
+ * after it). With the "objects" engine a round is Field.performARound on
+ * every field, with "arrays" it's the PopulationEngine's round.
+ * In a churning world Robs are born and die, so every measurement starts
+ * from a freshly created world (the same one, it's deterministic) and
+ * measures the time of ROUNDS rounds; the number of robs that acted in them
+ * is reported through an auxiliary counter. "no_churn" measures a world
+ * whose population stays the same (see World).
+ *
+ * @author Adam Al-Hosam
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = RoundBenchmark.ROUNDS)
+@Measurement(iterations = 10, batchSize = RoundBenchmark.ROUNDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoundBenchmark {
+    // number of rounds measured from a freshly created world
+    static final int ROUNDS = 50;
+    // rounds performed before measuring, so that the robs are spread
+    private static final int WARM_UP_ROUNDS = 10;
+
+    @Param({"64", "512"})
+    public int size;
+    // robs per field
+    @Param({"0.01", "0.1"})
+    public double density;
+    @Param({"4", "32"})
+    public int genome_length;
+    @Param({"objects", "arrays"})
+    public String engine;
+    @Param({"scan", "incremental"})
+    public String stats;
+    @Param({"churning", "no_churn"})
+    public String population;
+
+    private World world;
+
+    /**
+     * Number of robs that acted in the measured rounds.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Robs {
+        public long robs;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            robs = 0;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createWorld() {
+        String extra = "engine " + engine + "\nstats " + stats + "\n";
+        world = population.equals("churning")
+                ? World.churning(size, density, genome_length, extra,
+                WARM_UP_ROUNDS)
+                : World.withoutChurn(size, density, genome_length, extra,
+                WARM_UP_ROUNDS);
+    }
+
+    @Benchmark
+    public int round(Robs counter) {
+        int rob_count = world.board.getStats().getRobCount();
+        world.board.performARound(world.parameters);
+        counter.robs += rob_count;
+        return rob_count;
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import inhabitants_of_the_world.Rob;
+import stats.SimulationStats;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of collecting the stats with SimulationStats.updateByAField
+ * from every field of a churning, warmed-up world (the "scan" stats), and of
+ * updating them by the same robs copied to arrays with
+ * SimulationStats.updateByRobs (like the "arrays" engine does).
+ *
+ * @author Adam Al-Hosam
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatsBenchmark {
+    @Param({"64", "512"})
+    public int size;
+    @Param({"0.01", "0.1"})
+    public double density;
+
+    private World world;
+    private SimulationStats stats;
+    private int[] program_lengths;
+    private float[] energies;
+    private int[] ages;
+    private int rob_count;
+
+    @Setup(Level.Trial)
+    public void createWorld() {
+        world = World.churning(size, density, 8, "", 10);
+        stats = new SimulationStats();
+        int capacity = world.board.getStats().getRobCount();
+        program_lengths = new int[capacity];
+        energies = new float[capacity];
+        ages = new int[capacity];
+        rob_count = 0;
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                for (Rob rob = world.board.getField(row, column)
+                        .getFirstRob(); rob != null && rob_count < capacity;
+                     rob = rob.getNextOnField()) {
+                    program_lengths[rob_count] = rob.getProgramLength();
+                    energies[rob_count] = rob.getEnergy();
+                    ages[rob_count++] = rob.getAge();
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public SimulationStats updateByAField() {
+        stats.clearTheStats();
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                stats.updateByAField(world.board.getField(row, column));
+            }
+        }
+        return stats;
+    }
+
+    @Benchmark
+    public SimulationStats updateByRobs() {
+        stats.clearTheStats();
+        stats.updateByRobs(program_lengths, energies, ages, rob_count);
+        return stats;
+    }
+}
@@ -0,0 +1,205 @@
+package benchmarks;
+
+import error_handling.BoardFormatException;
+import world.Board;
+import world.Parameters;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Fixture of the benchmarks - a deterministic, warmed-up world. The board
+ * and the parameters are generated from a fixed seed, written to temporary
+ * files and read the same way the simulation reads them.
+ * A churning world is a world like in real simulations: Robs eat,
+ * duplicate (with mutations) and die. Food feeds a Rob for FOOD_ROUNDS
+ * rounds of its starting program and grows back slower in sparser worlds,
+ * so that the food could feed about the given density of robs. Like in
+ * real simulations, the population doesn't stay the same - for densities
+ * 0.01 and 0.1 and programs of 4 and 32 instructions it stays between 0.2
+ * and 6 times the density in the 60 rounds after the start - so
+ * a benchmark should measure a fixed number of rounds from a freshly
+ * created world.
+ * A world without churn is the special case of a population that stays
+ * the same: Robs never duplicate and start with STEADY_ENERGY, enough for
+ * about a hundred thousand rounds, but still less than 2^24, so their
+ * energy changes exactly like in real simulations (see
+ * CompiledProgram.isPaymentExact).
+ *
+ * @author Adam Al-Hosam
+ */
+public class World {
+    private static final long SEED = 42;
+    // part of the fields that have food
+    private static final double FOOD_DENSITY = 0.2;
+    private static final String INSTRUCTIONS = "lpiwj";
+    // number of rounds a Rob's meal is enough for in a churning world
+    private static final int FOOD_ROUNDS = 20;
+    // starting energy of Robs in a world without churn
+    public static final int STEADY_ENERGY = 1 << 23;
+
+    public final Board board;
+    public final Parameters parameters;
+
+    /**
+     * Constructor that creates a world and performs warm_up_rounds rounds
+     * in it, so that the robs are spread and some of the food is eaten.
+     *
+     * @param size           : number of rows and columns of the board
+     * @param parameters     : the world's parameters
+     * @param warm_up_rounds : number of rounds performed before measuring
+     */
+    private World(int size, Parameters parameters, int warm_up_rounds) {
+        this.parameters = parameters;
+        board = createBoard(size);
+        board.prepareRounds(parameters);
+        for (int i = 0; i < warm_up_rounds; i++) {
+            board.performARound(parameters);
+        }
+    }
+
+    /**
+     * Creates a churning world - its Robs eat, duplicate and die.
+     *
+     * @param size           : number of rows and columns of the board
+     * @param density        : number of robs per field
+     * @param genome_length  : length of the robs' starting program
+     * @param extra          : extension parameters, one per line
+     * @param warm_up_rounds : number of rounds performed before measuring
+     * @return the world
+     */
+    public static World churning(int size, double density, int genome_length,
+                                 String extra, int warm_up_rounds) {
+        return new World(size, createParameters(genome_length, density,
+                robCount(size, density), true, extra), warm_up_rounds);
+    }
+
+    /**
+     * Creates a world without churn - its Robs never duplicate and don't
+     * die for about a hundred thousand rounds.
+     *
+     * @param size           : number of rows and columns of the board
+     * @param density        : number of robs per field
+     * @param genome_length  : length of the robs' starting program
+     * @param extra          : extension parameters, one per line
+     * @param warm_up_rounds : number of rounds performed before measuring
+     * @return the world
+     */
+    public static World withoutChurn(int size, double density,
+                                     int genome_length, String extra,
+                                     int warm_up_rounds) {
+        return new World(size, createParameters(genome_length, density,
+                robCount(size, density), false, extra), warm_up_rounds);
+    }
+
+    /**
+     * @param size    : number of rows and columns of the board
+     * @param density : number of robs per field
+     * @return number of robs on start
+     */
+    private static int robCount(int size, double density) {
+        return (int) Math.max(1, Math.round(density * size * size));
+    }
+
+    /**
+     * @param genome_length : length of the program
+     * @return a random program made of all the valid instructions
+     */
+    public static String genome(int genome_length) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        StringBuilder result = new StringBuilder(genome_length);
+        for (int i = 0; i < genome_length; i++) {
+            result.append(INSTRUCTIONS.charAt(
+                    random.nextInt(INSTRUCTIONS.length())));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Writes the parameters to a temporary file and reads them.
+     *
+     * @param genome_length : length of the robs' starting program
+     * @param density       : number of robs per field the food should feed
+     * @param rob_count     : number of robs on start
+     * @param has_churn     : true - a churning world, false - a world
+     *                      without churn
+     * @param extra         : extension parameters, one per line
+     * @return the parameters
+     */
+    public static Parameters createParameters(int genome_length,
+                                              double density, int rob_count,
+                                              boolean has_churn,
+                                              String extra) {
+        // a Rob pays genome_length + 1 for its starting program and a round
+        int food_energy = FOOD_ROUNDS * (genome_length + 1);
+        // food on FOOD_DENSITY of the fields feeds density robs per field,
+        // if it grows back every food_growth + 1 rounds
+        long food_growth = Math.max(1,
+                Math.round(FOOD_DENSITY * FOOD_ROUNDS / density) - 1);
+        String text = "how_many_rounds 1000000\n" +
+                "how_many_robs_on_start " + rob_count + "\n" +
+                (has_churn
+                        ? "starting_energy " + food_energy + "\n" +
+                        "how_much_energy_food_gives " + food_energy + "\n" +
+                        "how_long_does_food_grow " + food_growth + "\n" +
+                        "duplication_probability 0.2\n" +
+                        "duplication_limit " + 5 * food_energy + "\n"
+                        : "starting_energy " + STEADY_ENERGY + "\n" +
+                        "how_much_energy_food_gives 10\n" +
+                        "how_long_does_food_grow 4\n" +
+                        "duplication_probability 0\n" +
+                        "duplication_limit 10\n") +
+                "round_cost 1\n" +
+                "parents_energy_fraction 0.4\n" +
+                "starting_program " + genome(genome_length) + "\n" +
+                "how_often_to_print 1000000\n" +
+                "probability_of_removing_instr 0.3\n" +
+                "probability_of_adding_instr 0.4\n" +
+                "probability_of_changing_instr 0.3\n" +
+                "valid_instructions " + INSTRUCTIONS + "\n" +
+                "seed " + SEED + "\n" +
+                extra;
+        try {
+            Path path = Files.createTempFile("parameters", ".txt");
+            try {
+                Files.writeString(path, text);
+                return new Parameters(path.toString());
+            } finally {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes a square board with food on FOOD_DENSITY of the fields to
+     * a temporary file and reads it.
+     *
+     * @param size : number of rows and columns
+     * @return the board
+     */
+    private static Board createBoard(int size) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        StringBuilder text = new StringBuilder((size + 1) * size);
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                text.append(random.nextDouble() < FOOD_DENSITY ? 'x' : ' ');
+            }
+            text.append('\n');
+        }
+        try {
+            Path path = Files.createTempFile("board", ".txt");
+            try {
+                Files.writeString(path, text);
+                return new Board(path.toString());
+            } finally {
+                Files.delete(path);
+            }
+        } catch (IOException | BoardFormatException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package checkpoint;
+
+import error_handling.Guard;
+import inhabitants_of_the_world.Program;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Class that reads a checkpoint written by CheckpointWriter. The file is
+ * memory-mapped and read in the order it was written: the header (read by
+ * the constructor), the fields and the Robs. The Rob read last is kept in
+ * the reader's attributes (see nextRob).
+ * A file that isn't a valid checkpoint ends the program with a message.
+ *
+ * @author Adam Al-Hosam
+ */
+public class CheckpointReader {
+    private final MappedByteBuffer buffer;
+    private final String path;
+    private final int row_count;
+    private final int column_count;
+    private final int round_number;
+    // programs in the order of their first appearance
+    private final ArrayList<Program> programs;
+    // last read field
+    private boolean has_food;
+    private boolean is_food_ready;
+    private int food_timer;
+    // last read Rob
+    private Program program;
+    private int direction;
+    private int age;
+    private float energy;
+    private long random_seed;
+    private long random_gamma;
+
+    /**
+     * Constructor that opens a checkpoint and reads its header.
+     *
+     * @param path : path of the checkpoint file
+     */
+    public CheckpointReader(String path) {
+        this.path = path;
+        MappedByteBuffer mapped = null;
+        try (FileChannel channel = FileChannel.open(Path.of(path),
+                StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        } catch (IOException e) {
+            Guard.endProgramWithAMessage("Can't read the checkpoint: " +
+                    e.getMessage());
+        }
+        buffer = mapped;
+        programs = new ArrayList<>();
+
+        if (buffer.remaining() < 20 || buffer.getInt() != CheckpointWriter.MAGIC
+                || buffer.getInt() != CheckpointWriter.VERSION) {
+            fail();
+        }
+        row_count = buffer.getInt();
+        column_count = buffer.getInt();
+        round_number = buffer.getInt();
+    }
+
+    /**
+     * Ends the program, because the file isn't a valid checkpoint.
+     */
+    private void fail() {
+        Guard.endProgramWithAMessage("Not a valid checkpoint: " + path);
+    }
+
+    /**
+     * @return board's row count
+     */
+    public int getRowCount() {
+        return row_count;
+    }
+
+    /**
+     * @return board's column count
+     */
+    public int getColumnCount() {
+        return column_count;
+    }
+
+    /**
+     * @return number of the last round finished before the checkpoint
+     */
+    public int getRoundNumber() {
+        return round_number;
+    }
+
+    /**
+     * Reads the next field. Its state can be read with hasFood,
+     * isFoodReady and getFoodTimer.
+     */
+    public void nextField() {
+        try {
+            byte kind = buffer.get();
+            if (kind != CheckpointWriter.EMPTY &&
+                    kind != CheckpointWriter.FOOD) {
+                fail();
+            }
+            has_food = kind == CheckpointWriter.FOOD;
+            is_food_ready = false;
+            food_timer = 0;
+            if (has_food) {
+                is_food_ready = buffer.get() != 0;
+                food_timer = buffer.getInt();
+            }
+        } catch (BufferUnderflowException e) {
+            fail();
+        }
+    }
+
+    /**
+     * @return is the last read field a field with food
+     */
+    public boolean hasFood() {
+        return has_food;
+    }
+
+    /**
+     * @return is there food on the last read field
+     */
+    public boolean isFoodReady() {
+        return is_food_ready;
+    }
+
+    /**
+     * @return number of rounds the food on the last read field has been
+     * growing
+     */
+    public int getFoodTimer() {
+        return food_timer;
+    }
+
+    /**
+     * Reads the number of Robs on the next field.
+     *
+     * @return number of Robs, which have to be read with nextRob
+     */
+    public int nextRobCount() {
+        int result = 0;
+        try {
+            result = buffer.getInt();
+        } catch (BufferUnderflowException e) {
+            fail();
+        }
+        if (result < 0) {
+            fail();
+        }
+        return result;
+    }
+
+    /**
+     * Reads the next Rob. Its attributes can be read with getters.
+     */
+    public void nextRob() {
+        try {
+            int number = buffer.getInt();
+            if (number == CheckpointWriter.NEW) {
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    fail();
+                }
+                char[] instructions = new char[length];
+                for (int i = 0; i < length; i++) {
+                    instructions[i] = (char) buffer.get();
+                }
+                program = new Program(instructions);
+                programs.add(program);
+            } else if (number >= 0 && number < programs.size()) {
+                program = programs.get(number);
+            } else {
+                fail();
+            }
+            direction = buffer.get();
+            age = buffer.getInt();
+            energy = buffer.getFloat();
+            random_seed = buffer.getLong();
+            random_gamma = buffer.getLong();
+        } catch (BufferUnderflowException e) {
+            fail();
+        }
+        if (direction < 0 || direction > 3 || age < 0) {
+            fail();
+        }
+    }
+
+    /**
+     * Checks that the whole checkpoint has been read.
+     */
+    public void finish() {
+        if (buffer.hasRemaining()) {
+            fail();
+        }
+    }
+
+    /**
+     * @return last read Rob's program
+     */
+    public Program getProgram() {
+        return program;
+    }
+
+    /**
+     * @return last read Rob's direction
+     */
+    public int getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return last read Rob's age
+     */
+    public int getAge() {
+        return age;
+    }
+
+    /**
+     * @return last read Rob's energy
+     */
+    public float getEnergy() {
+        return energy;
+    }
+
+    /**
+     * @return seed of the last read Rob's random stream
+     */
+    public long getRandomSeed() {
+        return random_seed;
+    }
+
+    /**
+     * @return gamma of the last read Rob's random stream
+     */
+    public long getRandomGamma() {
+        return random_gamma;
+    }
+}
@@ -0,0 +1,284 @@
+package checkpoint;
+
+import error_handling.Guard;
+import inhabitants_of_the_world.Program;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+
+/**
+ * Class that writes binary checkpoints of a simulation - everything needed
+ * to continue it: the round number, every field's food state and every
+ * Rob (program, energy, direction, age, random stream) field after field.
+ * The simulation thread only copies the state into a buffer, a background
+ * thread writes it through a FileChannel to a temporary file and moves it
+ * in place of the previous checkpoint, so a crash during writing doesn't
+ * spoil the last checkpoint.
+ * There are two buffers, reused by every checkpoint - one is being written
+ * by the background thread and the other one is being filled (or waits to
+ * be written). A finished checkpoint that the background thread hasn't
+ * started writing yet is replaced by the next one, so the simulation thread
+ * never waits for the disk.
+ * <p>
+ * Format (big-endian):
+ * MAGIC, VERSION, row count, column count, round number (ints),
+ * then every field (row after row): a byte EMPTY or FOOD, for FOOD a byte
+ * (is the food ready) and an int (food timer),
+ * then every field: an int - number of Robs, and the Robs from the last one
+ * on the field's list to the first one: an int - program's number (NEW if
+ * the program appears for the first time, followed by its length and
+ * instructions as bytes), a byte - direction, an int - age, a float -
+ * energy, two longs - random stream's seed and gamma.
+ * Programs are numbered in the order of their first appearance.
+ *
+ * @author Adam Al-Hosam
+ */
+public class CheckpointWriter {
+    static final int MAGIC = 0x524f4253;    // "ROBS"
+    static final int VERSION = 1;
+    static final byte EMPTY = 0;
+    static final byte FOOD = 1;
+    static final int NEW = -1;
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final Path path;
+    private final Path temporary_path;
+    // buffer being filled, null between finish and begin
+    private ByteBuffer buffer;
+    // numbers of programs written in the current checkpoint
+    private final IdentityHashMap<Program, Integer> program_numbers;
+    // finished checkpoint waiting to be written (guarded by this)
+    private ByteBuffer pending;
+    // buffer free to be filled (guarded by this)
+    private ByteBuffer spare;
+    // no more checkpoints will be finished (guarded by this)
+    private boolean is_closed;
+    private final Thread writer;
+
+    /**
+     * Constructor that creates a writer of checkpoints to a given file.
+     *
+     * @param path : path of the checkpoint file
+     */
+    public CheckpointWriter(String path) {
+        this.path = Path.of(path);
+        this.temporary_path = Path.of(path + ".tmp");
+        buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+        program_numbers = new IdentityHashMap<>();
+        writer = new Thread(this::writeCheckpoints, "checkpoint-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Makes sure there is space for a given number of bytes in the buffer.
+     *
+     * @param bytes : number of bytes that will be put
+     */
+    private void ensureSpace(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(
+                    Math.max(2 * buffer.capacity(),
+                            buffer.position() + bytes));
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+    }
+
+    /**
+     * Starts a new checkpoint.
+     *
+     * @param row_count    : board's row count
+     * @param column_count : board's column count
+     * @param round_number : number of the last finished round
+     */
+    public void begin(int row_count, int column_count, int round_number) {
+        if (buffer == null) {
+            takeFreeBuffer();
+        }
+        buffer.clear();
+        program_numbers.clear();
+        ensureSpace(20);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(row_count)
+                .putInt(column_count).putInt(round_number);
+    }
+
+    /**
+     * Puts a field without food.
+     */
+    public void putEmptyField() {
+        ensureSpace(1);
+        buffer.put(EMPTY);
+    }
+
+    /**
+     * Puts a field with food.
+     *
+     * @param is_food_ready : is there food on the field
+     * @param food_timer    : number of rounds the food has been growing
+     */
+    public void putFoodField(boolean is_food_ready, int food_timer) {
+        ensureSpace(6);
+        buffer.put(FOOD).put((byte) (is_food_ready ? 1 : 0))
+                .putInt(food_timer);
+    }
+
+    /**
+     * Puts the number of Robs on the next field - exactly as many Robs have
+     * to be put after it.
+     *
+     * @param rob_count : number of Robs on the field
+     */
+    public void putRobCount(int rob_count) {
+        ensureSpace(4);
+        buffer.putInt(rob_count);
+    }
+
+    /**
+     * Puts a Rob.
+     *
+     * @param program      : Rob's program
+     * @param direction    : Rob's direction
+     * @param age          : Rob's age
+     * @param energy       : Rob's energy
+     * @param random_seed  : seed of the Rob's random stream
+     * @param random_gamma : gamma of the Rob's random stream
+     */
+    public void putRob(Program program, int direction, int age, float energy,
+                       long random_seed, long random_gamma) {
+        Integer number = program_numbers.get(program);
+        if (number == null) {
+            char[] instructions = program.getInstructions();
+            ensureSpace(8 + instructions.length);
+            buffer.putInt(NEW).putInt(instructions.length);
+            for (char instruction : instructions) {
+                buffer.put((byte) instruction);
+            }
+            program_numbers.put(program, program_numbers.size());
+        } else {
+            ensureSpace(4);
+            buffer.putInt(number);
+        }
+        ensureSpace(25);
+        buffer.put((byte) direction).putInt(age).putFloat(energy)
+                .putLong(random_seed).putLong(random_gamma);
+    }
+
+    /**
+     * Takes a buffer for a new checkpoint: the spare one or the one of
+     * the checkpoint waiting to be written, which the new checkpoint will
+     * replace. The second buffer is created when the first checkpoint is
+     * still being written.
+     */
+    private void takeFreeBuffer() {
+        synchronized (this) {
+            if (spare != null) {
+                buffer = spare;
+                spare = null;
+            } else {
+                buffer = pending;
+                pending = null;
+            }
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+        }
+    }
+
+    /**
+     * Finishes the checkpoint and hands it to the background thread.
+     * If the previous checkpoint is still waiting to be written, the new one
+     * is written instead of it.
+     */
+    public void finish() {
+        buffer.flip();
+        synchronized (this) {
+            if (pending != null) {
+                spare = pending;
+            }
+            pending = buffer;
+            notifyAll();
+        }
+        buffer = null;
+    }
+
+    /**
+     * Body of the background thread: writes finished checkpoints one after
+     * another, until the writer is closed and nothing is waiting.
+     */
+    private void writeCheckpoints() {
+        while (true) {
+            ByteBuffer data;
+            synchronized (this) {
+                while (pending == null && !is_closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending == null) {
+                    return;
+                }
+                data = pending;
+                pending = null;
+            }
+            write(data);
+            synchronized (this) {
+                spare = data;
+            }
+        }
+    }
+
+    /**
+     * Writes a checkpoint to the temporary file and moves it in place
+     * of the checkpoint file.
+     *
+     * @param data : checkpoint's bytes
+     */
+    private void write(ByteBuffer data) {
+        try (FileChannel channel = FileChannel.open(temporary_path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            Guard.endProgramWithAMessage("Can't write a checkpoint: " +
+                    e.getMessage());
+        }
+        try {
+            Files.move(temporary_path, path,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Guard.endProgramWithAMessage("Can't write a checkpoint: " +
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Waits until the last finished checkpoint is written and stops
+     * the background thread.
+     */
+    public void close() {
+        synchronized (this) {
+            is_closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package error_handling;
+
+/**
+ * Signals that a board file doesn't describe a valid board. Carries
+ * the number of the line (counted from 1) that is wrong, so the caller can
+ * decide how to report it.
+ *
+ * @author Adam Al-Hosam
+ */
+public class BoardFormatException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final int line_number;
+
+    /**
+     * @param line_number : number of the wrong line (0 - the whole file)
+     * @param message     : what is wrong with the line
+     */
+    public BoardFormatException(int line_number, String message) {
+        super(line_number > 0 ? "line " + line_number + ": " + message
+                : message);
+        this.line_number = line_number;
+    }
+
+    /**
+     * @return number of the wrong line (0 - the whole file)
+     */
+    public int getLineNumber() {
+        return line_number;
+    }
+}
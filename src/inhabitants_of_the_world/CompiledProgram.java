@@ -0,0 +1,229 @@
+package inhabitants_of_the_world;
+
+/**
+ * Class representing a Program decoded into a form that is faster to
+ * execute. Each operation is an int - the opcode in the lowest 3 bits and
+ * the argument in the rest.
+ * Instructions are grouped in segments. A segment ends after every
+ * instruction that moves a Rob ('i' or 'j'), because only those can change
+ * its energy by more than 1. A segment starts with a SEGMENT operation,
+ * whose argument is the segment's energy cost (its number of instructions).
+ * Runs of 'l' and 'p' are fused into one ROTATE operation with the net
+ * number of quarter turns clockwise as the argument (0 turns - no operation).
+ * <p>
+ * Every instruction of a segment is performed only if the Rob still has
+ * positive energy, and each one takes 1 energy. So a Rob with energy E
+ * finishes a segment of cost c if and only if E > c - 1, and everything
+ * but the last instruction can be paid for at once (see payInAdvance).
+ * If a Rob can't finish a segment, it runs out of energy while performing
+ * it, so it dies and the instructions it could perform don't matter - they
+ * don't move it.
+ * <p>
+ * For profiling, the number of every instruction ("lpiwj") of every
+ * segment is kept too (see getSegmentCounts).
+ * <p>
+ * A program is memoizable if no operation after a GO looks at the board
+ * (SNIFF, GO or EAT). Then, as long as the Rob finishes every segment, its
+ * direction and the field it ends on depend only on its direction and
+ * the food around its field on the start (see world.OutcomeCache).
+ *
+ * @author Adam Al-Hosam
+ */
+public class CompiledProgram {
+    public static final int SEGMENT = 0;
+    public static final int ROTATE = 1;
+    public static final int SNIFF = 2;
+    public static final int GO = 3;
+    public static final int EAT = 4;
+    // instructions counted in segment_counts, in this order
+    public static final String INSTRUCTIONS = "lpiwj";
+
+    // below this value subtracting an integer from a float energy is exact
+    private static final float EXACT_LIMIT = 1 << 24;
+
+    private final int[] code;
+    // numbers of 'l', 'p', 'i', 'w' and 'j' of every segment, one by one
+    private final int[] segment_counts;
+    // number of instructions - energy taken if every segment is finished
+    private final int cost;
+    private final boolean is_memoizable;
+
+    /**
+     * Constructor that decodes given instructions.
+     *
+     * @param instructions : program's instructions
+     */
+    public CompiledProgram(char[] instructions) {
+        int[] result = new int[2 * instructions.length];
+        int length = 0;
+        int segment_start = -1;
+        int rotation = 0;
+        int[] counts = new int[INSTRUCTIONS.length() * instructions.length];
+        int segment = -1;
+
+        for (int i = 0; i < instructions.length; i++) {
+            if (segment_start < 0) {
+                segment_start = length++;
+                result[segment_start] = SEGMENT;
+                segment++;
+            }
+            result[segment_start] += 1 << 3;
+
+            char instruction = instructions[i];
+            int kind = INSTRUCTIONS.indexOf(instruction);
+            if (kind >= 0) {
+                counts[segment * INSTRUCTIONS.length() + kind]++;
+            }
+            if (instruction == 'l' || instruction == 'p') {
+                rotation += instruction == 'p' ? 1 : 3;
+                continue;
+            }
+            if (rotation % 4 != 0) {
+                result[length++] = (rotation % 4) << 3 | ROTATE;
+            }
+            rotation = 0;
+
+            switch (instruction) {
+                case 'w' -> result[length++] = SNIFF;
+                case 'i' -> {
+                    result[length++] = GO;
+                    segment_start = -1;
+                }
+                case 'j' -> {
+                    result[length++] = EAT;
+                    segment_start = -1;
+                }
+            }
+        }
+        if (rotation % 4 != 0) {
+            result[length++] = (rotation % 4) << 3 | ROTATE;
+        }
+
+        code = new int[length];
+        System.arraycopy(result, 0, code, 0, length);
+        cost = instructions.length;
+        is_memoizable = checkIfMemoizable();
+        segment_counts = new int[INSTRUCTIONS.length() * (segment + 1)];
+        System.arraycopy(counts, 0, segment_counts, 0,
+                segment_counts.length);
+    }
+
+    /**
+     * @return true if no operation after a GO looks at the board
+     */
+    private boolean checkIfMemoizable() {
+        boolean has_moved = false;
+        for (int operation : code) {
+            int opcode = getOpcode(operation);
+            if (has_moved && (opcode == SNIFF || opcode == GO ||
+                    opcode == EAT)) {
+                return false;
+            }
+            has_moved |= opcode == GO;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the program's outcome can be memoized (see the class'
+     * description)
+     */
+    public boolean isMemoizable() {
+        return is_memoizable;
+    }
+
+    /**
+     * @return energy taken by the program if every segment is finished
+     * (without the round's cost)
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * A getter that doesn't copy the array - it mustn't be modified.
+     *
+     * @return program's operations
+     */
+    public int[] getCode() {
+        return code;
+    }
+
+    /**
+     * A getter that doesn't copy the array - it mustn't be modified.
+     * Numbers of the instructions of segment s are at indices
+     * s * INSTRUCTIONS.length() + INSTRUCTIONS.indexOf(instruction).
+     *
+     * @return numbers of every instruction of every segment
+     */
+    public int[] getSegmentCounts() {
+        return segment_counts;
+    }
+
+    /**
+     * @param operation : an operation
+     * @return operation's opcode
+     */
+    public static int getOpcode(int operation) {
+        return operation & 7;
+    }
+
+    /**
+     * @param operation : an operation
+     * @return operation's argument
+     */
+    public static int getArgument(int operation) {
+        return operation >>> 3;
+    }
+
+    /**
+     * Checks if a Rob with a given energy finishes a segment.
+     *
+     * @param energy : Rob's energy before the segment
+     * @param cost   : segment's cost
+     * @return true if the Rob will perform every instruction of the segment
+     */
+    public static boolean canFinish(float energy, int cost) {
+        return energy > cost - 1;
+    }
+
+    /**
+     * Takes the energy for every instruction of a segment but the last one,
+     * giving exactly the same result as taking 1 energy cost - 1 times.
+     *
+     * @param energy : Rob's energy before the segment
+     * @param cost   : segment's cost
+     * @return Rob's energy before the last instruction of the segment
+     */
+    public static float payInAdvance(float energy, int cost) {
+        return pay(energy, cost - 1);
+    }
+
+    /**
+     * Takes given energy at once, giving exactly the same result as taking
+     * 1 energy amount times.
+     *
+     * @param energy : Rob's energy
+     * @param amount : energy to take
+     * @return Rob's energy after paying
+     */
+    public static float pay(float energy, int amount) {
+        if (energy < EXACT_LIMIT) {
+            return energy - amount;
+        }
+        // big floats are rounded, so they have to be decreased one by one
+        for (int i = 0; i < amount; i++) {
+            energy -= 1;
+        }
+        return energy;
+    }
+
+    /**
+     * @param energy : a Rob's energy
+     * @return true if paying for instructions one by one gives the same
+     * result as paying for them at once, as long as the energy doesn't grow
+     */
+    public static boolean isPaymentExact(float energy) {
+        return energy < EXACT_LIMIT;
+    }
+}
@@ -0,0 +1,18 @@
+package inhabitants_of_the_world;
+
+/**
+ * Interface of a Program turned into a class of its own (see
+ * ProgramGenerator) - its operations are called one after another, with no
+ * loop and no switch, so the JIT compiler can inline the whole program.
+ *
+ * @author Adam Al-Hosam
+ */
+public interface GeneratedProgram {
+    /**
+     * Executes the whole program segment after segment, the same way as
+     * the CompiledProgram is interpreted, without the round's cost.
+     *
+     * @param executor : performs the operations on the executing Rob
+     */
+    void execute(ProgramExecutor executor);
+}
@@ -0,0 +1,74 @@
+package inhabitants_of_the_world;
+
+import randomizing.RandomStream;
+
+/**
+ * Class representing a Rob moving from one board (island) to another.
+ * It keeps everything needed to recreate the Rob on the other board and it
+ * never changes, so it can be passed between threads. The program is
+ * a copy, because programs are shared through the pool of their board.
+ *
+ * @author Adam Al-Hosam
+ */
+public class Migrant {
+    private final Program program;
+    private final int direction;
+    private final float energy;
+    private final int age;
+    private final long random_seed;
+    private final long random_gamma;
+
+    /**
+     * Constructor that copies a Rob's attributes.
+     *
+     * @param program   : Rob's program
+     * @param direction : Rob's direction
+     * @param energy    : Rob's energy
+     * @param age       : Rob's age
+     * @param random    : Rob's random stream
+     */
+    public Migrant(Program program, int direction, float energy, int age,
+                   RandomStream random) {
+        this.program = new Program(program.getInstructions());
+        this.direction = direction;
+        this.energy = energy;
+        this.age = age;
+        this.random_seed = random.getSeed();
+        this.random_gamma = random.getGamma();
+    }
+
+    /**
+     * @return Rob's program (not acquired by any pool)
+     */
+    public Program getProgram() {
+        return program;
+    }
+
+    /**
+     * @return Rob's direction
+     */
+    public int getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return Rob's energy
+     */
+    public float getEnergy() {
+        return energy;
+    }
+
+    /**
+     * @return Rob's age
+     */
+    public int getAge() {
+        return age;
+    }
+
+    /**
+     * @return a copy of the Rob's random stream
+     */
+    public RandomStream getRandom() {
+        return new RandomStream(random_seed, random_gamma);
+    }
+}
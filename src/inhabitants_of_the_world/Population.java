@@ -0,0 +1,370 @@
+package inhabitants_of_the_world;
+
+import randomizing.RandomStream;
+
+import java.util.Arrays;
+
+/**
+ * Class representing all Robs of a simulation stored as parallel arrays
+ * instead of Rob objects. A Rob is identified by its slot - an index into
+ * every array. Slots of dead Robs are kept on a free list and reused by
+ * the next births.
+ * Robs standing on the same field are linked in an intrusive list
+ * (next/previous arrays), the heads of those lists belong to the board.
+ *
+ * @author Adam Al-Hosam
+ */
+public class Population {
+    // value of next/previous meaning "no Rob"
+    public static final int NONE = -1;
+    // value of previous meaning that the Rob isn't linked in any list
+    private static final int UNLINKED = -2;
+
+    private float[] energy;
+    private int[] direction; //0 - top, 1 - right, 2 - bottom, 3 - left
+    private int[] age;
+    private int[] field;
+    private Program[] program;
+    // state of Robs' random streams
+    private long[] random_seed;
+    private long[] random_gamma;
+    private int[] next;
+    private int[] previous;
+    private int[] free_slots;
+    private int free_count;
+    // slots below this value have been used at least once
+    private int used_slots;
+    private int size;
+
+    /**
+     * Constructor that creates an empty population with arrays of a given
+     * initial capacity.
+     *
+     * @param capacity : initial number of slots
+     */
+    public Population(int capacity) {
+        capacity = Math.max(capacity, 16);
+        energy = new float[capacity];
+        direction = new int[capacity];
+        age = new int[capacity];
+        field = new int[capacity];
+        program = new Program[capacity];
+        random_seed = new long[capacity];
+        random_gamma = new long[capacity];
+        next = new int[capacity];
+        previous = new int[capacity];
+        free_slots = new int[capacity];
+        free_count = 0;
+        used_slots = 0;
+        size = 0;
+    }
+
+    /**
+     * Doubles the capacity of every array.
+     */
+    private void grow() {
+        int new_capacity = energy.length * 2;
+        energy = Arrays.copyOf(energy, new_capacity);
+        direction = Arrays.copyOf(direction, new_capacity);
+        age = Arrays.copyOf(age, new_capacity);
+        field = Arrays.copyOf(field, new_capacity);
+        program = Arrays.copyOf(program, new_capacity);
+        random_seed = Arrays.copyOf(random_seed, new_capacity);
+        random_gamma = Arrays.copyOf(random_gamma, new_capacity);
+        next = Arrays.copyOf(next, new_capacity);
+        previous = Arrays.copyOf(previous, new_capacity);
+        free_slots = Arrays.copyOf(free_slots, new_capacity);
+    }
+
+    /**
+     * Returns a free slot (a dead Rob's slot if there is any), growing
+     * the arrays if needed.
+     *
+     * @return a free slot
+     */
+    private int takeFreeSlot() {
+        if (free_count > 0) {
+            return free_slots[--free_count];
+        }
+        if (used_slots == energy.length) {
+            grow();
+        }
+        return used_slots++;
+    }
+
+    /**
+     * Creates a new Rob in a free slot (reusing a dead Rob's slot if there
+     * is any). The new Rob is not linked in any field's list.
+     *
+     * @param new_program   : Rob's program
+     * @param new_energy    : Rob's energy
+     * @param new_direction : Rob's direction
+     * @param new_field     : index of the Rob's field
+     * @return slot of the new Rob
+     */
+    public int add(Program new_program, float new_energy, int new_direction,
+                   int new_field) {
+        int slot = takeFreeSlot();
+        initialize(slot, new_program, new_energy, new_direction, new_field);
+        size++;
+        return slot;
+    }
+
+    /**
+     * Sets up a new Rob in a slot taken earlier with takeFreeSlots. Unlike
+     * add, it doesn't change the population's size - see changeSize.
+     * Different threads can initialize different slots at the same time.
+     *
+     * @param slot          : a reserved slot
+     * @param new_program   : Rob's program
+     * @param new_energy    : Rob's energy
+     * @param new_direction : Rob's direction
+     * @param new_field     : index of the Rob's field
+     */
+    public void initialize(int slot, Program new_program, float new_energy,
+                           int new_direction, int new_field) {
+        program[slot] = new_program;
+        energy[slot] = new_energy;
+        direction[slot] = new_direction;
+        age[slot] = 0;
+        field[slot] = new_field;
+        next[slot] = NONE;
+        previous[slot] = UNLINKED;
+    }
+
+    /**
+     * Reserves free slots, so that they can be initialized later without
+     * touching the free list (and without growing the arrays).
+     *
+     * @param into  : array to put the slots in (from its beginning)
+     * @param count : number of slots to reserve
+     */
+    public void takeFreeSlots(int[] into, int count) {
+        for (int i = 0; i < count; i++) {
+            into[i] = takeFreeSlot();
+        }
+    }
+
+    /**
+     * Gives back slots that were reserved and not used.
+     *
+     * @param slots : array with the slots (from its beginning)
+     * @param count : number of slots to give back
+     */
+    public void returnFreeSlots(int[] slots, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            free_slots[free_count++] = slots[i];
+        }
+    }
+
+    /**
+     * Updates the number of living Robs after Robs were initialized in
+     * reserved slots.
+     *
+     * @param delta : number of initialized Robs
+     */
+    public void changeSize(int delta) {
+        size += delta;
+    }
+
+    /**
+     * Removes a dead Rob and puts its slot on the free list. The Rob has to
+     * be unlinked from its field's list before.
+     *
+     * @param slot : dead Rob's slot
+     */
+    public void remove(int slot) {
+        program[slot] = null;
+        free_slots[free_count++] = slot;
+        size--;
+    }
+
+    /**
+     * @return number of living Robs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Copies program lengths, energies and ages of all living Robs (in
+     * the order of their slots) to the beginnings of given arrays, which
+     * have to be big enough (see size), so that they can be reduced a whole
+     * array at a time.
+     *
+     * @param program_lengths : array for the lengths of the Robs' programs
+     * @param energies        : array for the Robs' energies
+     * @param ages            : array for the Robs' ages
+     * @return number of the copied Robs
+     */
+    public int copyLiving(int[] program_lengths, float[] energies,
+                          int[] ages) {
+        int count = 0;
+        for (int slot = 0; slot < used_slots; slot++) {
+            if (program[slot] != null) {
+                program_lengths[count] =
+                        program[slot].getInstructionsArrayLength();
+                energies[count] = energy[slot];
+                ages[count++] = age[slot];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param slot : Rob's slot
+     * @return true - if the Rob is linked in some field's list, else false
+     */
+    public boolean isLinked(int slot) {
+        return previous[slot] != UNLINKED;
+    }
+
+    /**
+     * Marks a Rob as linked after it has been placed as the first element of
+     * a list.
+     *
+     * @param slot     : Rob's slot
+     * @param old_head : slot of the previous first element of the list
+     */
+    public void linkAsFirst(int slot, int old_head) {
+        previous[slot] = NONE;
+        next[slot] = old_head;
+        if (old_head != NONE) {
+            previous[old_head] = slot;
+        }
+    }
+
+    /**
+     * Marks a Rob as no longer linked in any list and fixes its neighbours'
+     * links. The list's owner is responsible for updating its head and tail.
+     *
+     * @param slot : Rob's slot
+     */
+    public void unlink(int slot) {
+        if (previous[slot] >= 0) {
+            next[previous[slot]] = next[slot];
+        }
+        if (next[slot] >= 0) {
+            previous[next[slot]] = previous[slot];
+        }
+        previous[slot] = UNLINKED;
+        next[slot] = NONE;
+    }
+
+    /**
+     * @param slot : Rob's slot
+     * @return slot of the next Rob in the same list or NONE
+     */
+    public int getNext(int slot) {
+        return next[slot];
+    }
+
+    /**
+     * @param slot : Rob's slot
+     * @return slot of the previous Rob in the same list or NONE
+     */
+    public int getPrevious(int slot) {
+        return previous[slot];
+    }
+
+    /**
+     * @param slot : Rob's slot
+     * @return Rob's energy
+     */
+    public float getEnergy(int slot) {
+        return energy[slot];
+    }
+
+    /**
+     * @param slot       : Rob's slot
+     * @param new_energy : Rob's new energy
+     */
+    public void setEnergy(int slot, float new_energy) {
+        energy[slot] = new_energy;
+    }
+
+    /**
+     * @param slot : Rob's slot
+     * @return Rob's direction
+     */
+    public int getDirection(int slot) {
+        return direction[slot];
+    }
+
+    /**
+     * @param slot          : Rob's slot
+     * @param new_direction : Rob's new direction
+     */
+    public void setDirection(int slot, int new_direction) {
+        direction[slot] = new_direction;
+    }
+
+    /**
+     * @param slot : Rob's slot
+     * @return Rob's age
+     */
+    public int getAge(int slot) {
+        return age[slot];
+    }
+
+    /**
+     * @param slot    : Rob's slot
+     * @param new_age : Rob's new age
+     */
+    public void setAge(int slot, int new_age) {
+        age[slot] = new_age;
+    }
+
+    /**
+     * @param slot : Rob's slot
+     */
+    public void increaseAge(int slot) {
+        age[slot]++;
+    }
+
+    /**
+     * @param slot : Rob's slot
+     * @return index of the Rob's field
+     */
+    public int getField(int slot) {
+        return field[slot];
+    }
+
+    /**
+     * @param slot      : Rob's slot
+     * @param new_field : index of the Rob's new field
+     */
+    public void setField(int slot, int new_field) {
+        field[slot] = new_field;
+    }
+
+    /**
+     * Sets a given stream's state to the Rob's random stream's state, so that
+     * the stream can be used instead of the Rob's one.
+     *
+     * @param slot   : Rob's slot
+     * @param stream : stream to set
+     */
+    public void loadRandom(int slot, RandomStream stream) {
+        stream.setState(random_seed[slot], random_gamma[slot]);
+    }
+
+    /**
+     * Saves a given stream's state as the Rob's random stream.
+     *
+     * @param slot   : Rob's slot
+     * @param stream : stream to save
+     */
+    public void storeRandom(int slot, RandomStream stream) {
+        random_seed[slot] = stream.getSeed();
+        random_gamma[slot] = stream.getGamma();
+    }
+
+    /**
+     * @param slot : Rob's slot
+     * @return Rob's program
+     */
+    public Program getProgram(int slot) {
+        return program[slot];
+    }
+}
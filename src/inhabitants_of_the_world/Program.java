@@ -1,11 +1,10 @@
 package inhabitants_of_the_world;
 
 import error_handling.Guard;
-import randomizing.RandomExtensionBoolean;
+import randomizing.RandomStream;
 import world.Parameters;
 
 import java.util.Arrays;
-import java.util.Random;
 
 /**
  * Class representing a Rob's program
@@ -14,6 +13,20 @@ import java.util.Random;
  */
 public class Program {
     private final char[] instructions;
+    // number of instructions that can move a Rob ('i' and 'j')
+    private final int move_count;
+    // decoded instructions, created when the program is executed first
+    private CompiledProgram compiled;
+    // the program as a class of its own, once enough Robs carry it
+    private GeneratedProgram generated;
+    private final int hash_code;
+    // number of living Robs carrying this program, managed by ProgramPool
+    int reference_count;
+    // next program in the same chain of its ProgramPool's stripe
+    Program next_in_pool;
+    // number of living Robs carrying this program the stats were told about
+    // (see GenomeSketch) - events of a tiled round reach them after it ends
+    private int counted_robs;
 
     /**
      * Constructor that creates a new object from a given string.
@@ -22,6 +35,8 @@ public class Program {
      */
     public Program(String input) {
         instructions = input.toCharArray();
+        move_count = countMoves();
+        hash_code = Arrays.hashCode(instructions);
     }
 
     /**
@@ -32,6 +47,21 @@ public class Program {
      */
     public Program(char[] instructions) {
         this.instructions = instructions.clone();
+        move_count = countMoves();
+        hash_code = Arrays.hashCode(this.instructions);
+    }
+
+    /**
+     * @return number of instructions that can move a Rob
+     */
+    private int countMoves() {
+        int result = 0;
+        for (char instruction : instructions) {
+            if (instruction == 'i' || instruction == 'j') {
+                result++;
+            }
+        }
+        return result;
     }
 
     /**
@@ -43,6 +73,26 @@ public class Program {
         return instructions.clone();
     }
 
+    /**
+     * Unlike getInstructions, doesn't copy the array.
+     *
+     * @param index : instruction's index
+     * @return instruction with a given index
+     */
+    public char getInstruction(int index) {
+        return instructions[index];
+    }
+
+    /**
+     * @param other  : array with instructions
+     * @param length : number of the instructions
+     * @return true - if the program has exactly these instructions
+     */
+    boolean hasInstructions(char[] other, int length) {
+        return Arrays.equals(instructions, 0, instructions.length, other, 0,
+                length);
+    }
+
     /**
      * @return length of the instructions array
      */
@@ -50,24 +100,112 @@ public class Program {
         return instructions.length;
     }
 
+    /**
+     * Returns the program's decoded form, decoding it the first time it's
+     * needed. CompiledProgram is immutable, so if two threads decode it at
+     * the same time, it doesn't matter which result is kept.
+     *
+     * @return decoded program
+     */
+    public CompiledProgram getCompiled() {
+        CompiledProgram result = compiled;
+        if (result == null) {
+            result = new CompiledProgram(instructions);
+            compiled = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the program's generated class (see ProgramGenerator), if
+     * ProgramPool has generated it. Other threads may see it a bit later,
+     * they interpret the CompiledProgram until then.
+     *
+     * @return generated program, null if the program is interpreted
+     */
+    public GeneratedProgram getGenerated() {
+        return generated;
+    }
+
+    /**
+     * Generates the program's class, unless it's already generated. Only
+     * ProgramPool should use it.
+     */
+    void generate() {
+        if (generated == null) {
+            generated = ProgramGenerator.generate(getCompiled());
+        }
+    }
+
+    /**
+     * Forgets the program's generated class, so that it can be unloaded.
+     * Only ProgramPool should use it.
+     */
+    void forgetGenerated() {
+        generated = null;
+    }
+
+    /**
+     * Changes the number of living Robs carrying this program that
+     * the stats were told about. Only GenomeSketch should use it.
+     *
+     * @param change : 1 - a Rob was born, -1 - a Rob died
+     * @return the number after the change
+     */
+    public int countRobs(int change) {
+        counted_robs += change;
+        return counted_robs;
+    }
+
+    /**
+     * A Rob executing this program can't get further than move_count fields
+     * (in any direction, counting diagonals) from where it started.
+     *
+     * @return number of instructions that can move a Rob
+     */
+    public int getMoveCount() {
+        return move_count;
+    }
+
     /**
      * Performs a mutation on this object and returns a new object representing
-     * a program after a mutation. First it uses RandomExtensionBoolean to
-     * choose which mutations will take place and then checks different
-     * combinations  of mutations. Finally, it copies the beginning of
-     * the instructions Array.
+     * a program after a mutation (see mutateInto).
+     * If no mutation takes place, this object is returned - it's immutable,
+     * so it can be shared (see ProgramPool).
      *
      * @param parameters : simulation parameters
+     * @param randomizer : random stream of the Rob that gets the program
      * @return : a mutated program
      */
-    public Program mutation(Parameters parameters) {
+    public Program mutation(Parameters parameters, RandomStream randomizer) {
+        ProgramBuffer buffer = new ProgramBuffer();
+        return mutateInto(parameters, randomizer, buffer)
+                ? buffer.toProgram()
+                : this;
+    }
+
+    /**
+     * Performs a mutation on this object and writes the instructions of
+     * the program after the mutation to a buffer, without creating any
+     * object. First it uses the random stream to choose which mutations
+     * will take place and then checks different combinations of mutations.
+     * Finally, it copies the beginning of the instructions Array.
+     *
+     * @param parameters : simulation parameters
+     * @param randomizer : random stream of the Rob that gets the program
+     * @param buffer     : buffer for the mutated instructions
+     * @return false if no mutation takes place (the buffer isn't used then)
+     */
+    public boolean mutateInto(Parameters parameters, RandomStream randomizer,
+                              ProgramBuffer buffer) {
         // if instructions are empty then a mutation doesn't make sense
         if (parameters.getValidInstructions()
                 .getInstructionsArrayLength() == 0) {
-            return new Program("");
+            buffer.reset(0);
+            buffer.finish(0);
+            return true;
         }
 
-        RandomExtensionBoolean randomizer = new RandomExtensionBoolean();
         boolean should_remove, should_add, should_change;
         should_remove = instructions.length > 0 &&
                 randomizer.sampleBooleanWithProbability(parameters
@@ -79,28 +217,35 @@ public class Program {
                 randomizer.sampleBooleanWithProbability(parameters
                         .getProbabilityOfChangingInstr());
 
+        if (!should_remove && !should_add && !should_change) {
+            return false;
+        }
+
         // setting a new array such that last 1-2 elements are placed
         // so I can mass-copy the array
-        char[] new_instructions;
+        char[] new_instructions = buffer.reset(instructions.length + 1);
+        int length;
         if (should_add && should_remove) {
-            new_instructions = new char[instructions.length];
-            new_instructions[new_instructions.length - 1] =
-                    parameters.getValidInstructions().getRandomInstruction();
+            length = instructions.length;
+            new_instructions[length - 1] =
+                    parameters.getValidInstructions()
+                            .getRandomInstruction(randomizer);
         } else if (should_add) { // should_add && !should_remove
-            new_instructions = new char[instructions.length + 1];
-            new_instructions[new_instructions.length - 1] =
-                    parameters.getValidInstructions().getRandomInstruction();
+            length = instructions.length + 1;
+            new_instructions[length - 1] =
+                    parameters.getValidInstructions()
+                            .getRandomInstruction(randomizer);
 
             if (instructions.length > 0) {
-                new_instructions[new_instructions.length - 2] =
+                new_instructions[length - 2] =
                         instructions[instructions.length - 1];
             }
         } else if (should_remove) { //!should_add && should_remove
-            new_instructions = new char[instructions.length - 1];
+            length = instructions.length - 1;
         } else {          // !should_add && !should_remove
-            new_instructions = new char[instructions.length];
-            if (new_instructions.length > 0) {
-                new_instructions[new_instructions.length - 1] =
+            length = instructions.length;
+            if (length > 0) {
+                new_instructions[length - 1] =
                         instructions[instructions.length - 1];
             }
         }
@@ -109,21 +254,23 @@ public class Program {
             new_instructions[i] = this.instructions[i];
         }
 
-        if (should_change && new_instructions.length > 0) {
-            new_instructions[randomizer.nextInt(new_instructions.length)] =
-                    parameters.getValidInstructions().getRandomInstruction();
+        if (should_change && length > 0) {
+            new_instructions[randomizer.nextInt(length)] =
+                    parameters.getValidInstructions()
+                            .getRandomInstruction(randomizer);
         }
 
-        return new Program(new_instructions);
+        buffer.finish(length);
+        return true;
     }
 
     /**
      * Randomly chooses an instruction from a given program - helper function.
      *
+     * @param random : random stream to use
      * @return : random instruction id
      */
-    private char getRandomInstruction() {
-        Random random = new Random();
+    private char getRandomInstruction(RandomStream random) {
         if (this.instructions.length <= 0) {
             Guard.endProgramWithAMessage("getRandomInstruction cannot" +
                     " execute");
@@ -159,6 +306,33 @@ public class Program {
         return Arrays.toString(instructions);
     }
 
+    /**
+     * Programs are equal if they have the same instructions.
+     *
+     * @param o : object to compare with
+     * @return true - if o is a program with the same instructions
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Program)) {
+            return false;
+        }
+        Program other = (Program) o;
+        return hash_code == other.hash_code &&
+                Arrays.equals(instructions, other.instructions);
+    }
+
+    /**
+     * @return hash code of the instructions
+     */
+    @Override
+    public int hashCode() {
+        return hash_code;
+    }
+
     /**
      * @return copy of the object
      */
@@ -0,0 +1,77 @@
+package inhabitants_of_the_world;
+
+import java.util.Arrays;
+
+/**
+ * Class representing a reusable buffer for instructions of a program being
+ * created (see Program.mutateInto). It has the hash code of a Program with
+ * the same instructions, so ProgramPool can find a living Rob's program with
+ * these instructions without creating a new Program - one is created only
+ * for instructions nobody carries.
+ * A buffer is used by one thread at a time.
+ *
+ * @author Adam Al-Hosam
+ */
+public class ProgramBuffer {
+    private char[] instructions = new char[16];
+    private int length;
+    private int hash_code;
+
+    /**
+     * Makes sure there is room for a given number of instructions and empties
+     * the buffer.
+     *
+     * @param capacity : number of instructions
+     * @return array to write the instructions to
+     */
+    char[] reset(int capacity) {
+        if (instructions.length < capacity) {
+            instructions = new char[Math.max(capacity,
+                    2 * instructions.length)];
+        }
+        length = 0;
+        return instructions;
+    }
+
+    /**
+     * Ends writing the instructions.
+     *
+     * @param length : number of written instructions
+     */
+    void finish(int length) {
+        this.length = length;
+        int result = 1;
+        for (int i = 0; i < length; i++) {
+            result = 31 * result + instructions[i];
+        }
+        hash_code = result;
+    }
+
+    /**
+     * @return new Program with the buffer's instructions
+     */
+    Program toProgram() {
+        return new Program(Arrays.copyOf(instructions, length));
+    }
+
+    /**
+     * @return array with the instructions (see getLength)
+     */
+    char[] getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * @return number of the instructions
+     */
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * @return hash code of the instructions, the same as a Program's
+     */
+    int getHashCode() {
+        return hash_code;
+    }
+}
@@ -0,0 +1,49 @@
+package inhabitants_of_the_world;
+
+/**
+ * Interface of objects performing the operations of a GeneratedProgram on
+ * the Rob that is executing it. The operations are the ones of
+ * CompiledProgram and have the same meaning.
+ *
+ * @author Adam Al-Hosam
+ */
+public interface ProgramExecutor {
+    /**
+     * Starts a segment - takes the energy for every instruction of
+     * the segment but the last one (see CompiledProgram.payInAdvance).
+     *
+     * @param cost : segment's cost
+     * @return false if the Rob can't finish the segment - its energy is set
+     * to -1 then and the program ends
+     */
+    boolean startSegment(int cost);
+
+    /**
+     * Turns the Rob clockwise.
+     *
+     * @param turns : number of quarter turns
+     */
+    void rotate(int turns);
+
+    /**
+     * Performs a "sniff" instruction.
+     */
+    void sniff();
+
+    /**
+     * Performs a "go" instruction.
+     */
+    void go();
+
+    /**
+     * Performs an "eat" instruction.
+     */
+    void eat();
+
+    /**
+     * Ends a segment - takes the energy for its last instruction.
+     *
+     * @param segment : segment's number
+     */
+    void endSegment(int segment);
+}
@@ -0,0 +1,366 @@
+package inhabitants_of_the_world;
+
+import error_handling.Guard;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+
+/**
+ * Class turning CompiledPrograms into hidden classes implementing
+ * GeneratedProgram. The execute method of such a class is the program
+ * unrolled: for every segment it calls startSegment (and returns if it
+ * fails), the segment's operations and endSegment, each with its argument
+ * as a constant. The class file is written by hand (there is no class file
+ * API in Java 17) - it has only straight-line code and returns, so every
+ * branch target has the same stack map frame.
+ * A hidden class isn't kept by its class loader, so it's unloaded once its
+ * object isn't used anymore (see ProgramPool.release).
+ *
+ * @author Adam Al-Hosam
+ */
+final class ProgramGenerator {
+    // the JIT compiler doesn't compile longer methods, so interpreting
+    // the CompiledProgram is faster than executing them
+    private static final int MAX_CODE_LENGTH = 8000;
+    private static final String PACKAGE = "inhabitants_of_the_world/";
+    private static final String EXECUTOR = PACKAGE + "ProgramExecutor";
+
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int IFNE = 0x9a;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKEINTERFACE = 0xb9;
+
+    private final ByteArrayOutputStream pool_bytes =
+            new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(pool_bytes);
+    private final HashMap<String, Integer> pool_indices = new HashMap<>();
+    private int pool_count = 1;
+
+    private final ByteArrayOutputStream code_bytes =
+            new ByteArrayOutputStream();
+    private final DataOutputStream code = new DataOutputStream(code_bytes);
+    // offsets of the instructions following "return"s of failed segments
+    private final ByteArrayOutputStream frame_bytes =
+            new ByteArrayOutputStream();
+    private final DataOutputStream frames = new DataOutputStream(frame_bytes);
+    private int frame_count;
+    private int last_frame = -1;
+
+    private ProgramGenerator() {
+    }
+
+    /**
+     * Generates a class executing a program and creates its object.
+     *
+     * @param program : decoded program
+     * @return the program's GeneratedProgram, null if the program is too
+     * long to be worth generating
+     */
+    static GeneratedProgram generate(CompiledProgram program) {
+        try {
+            byte[] bytes = new ProgramGenerator().writeClass(program);
+            if (bytes == null) {
+                return null;
+            }
+            MethodHandles.Lookup lookup = MethodHandles.lookup()
+                    .defineHiddenClass(bytes, true);
+            return (GeneratedProgram) lookup.findConstructor(
+                    lookup.lookupClass(),
+                    MethodType.methodType(void.class)).invoke();
+        } catch (Throwable e) {
+            Guard.endProgramWithAMessage("Cannot generate a class for " +
+                    "a program: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * @param program : decoded program
+     * @return class file of the program's class, null if its execute
+     * method would be too long
+     * @throws IOException : never (the streams write to arrays)
+     */
+    private byte[] writeClass(CompiledProgram program) throws IOException {
+        writeExecute(program.getCode());
+        if (code_bytes.size() > MAX_CODE_LENGTH) {
+            return null;
+        }
+        byte[] execute_code = code_bytes.toByteArray();
+        byte[] execute_frames = frame_bytes.toByteArray();
+
+        int this_class = classEntry(PACKAGE + "Generated");
+        int object = classEntry("java/lang/Object");
+        int generated = classEntry(PACKAGE + "GeneratedProgram");
+        int object_init = memberEntry(10, object, "<init>", "()V");
+        int init = utf8Entry("<init>");
+        int init_descriptor = utf8Entry("()V");
+        int execute = utf8Entry("execute");
+        int execute_descriptor = utf8Entry("(L" + EXECUTOR + ";)V");
+        int code_attribute = utf8Entry("Code");
+        int frames_attribute = utf8Entry("StackMapTable");
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(result);
+        out.writeInt(0xcafebabe);
+        out.writeShort(0);
+        out.writeShort(61);
+        out.writeShort(pool_count);
+        pool_bytes.writeTo(out);
+        out.writeShort(0x0031); // public final super
+        out.writeShort(this_class);
+        out.writeShort(object);
+        out.writeShort(1);
+        out.writeShort(generated);
+        out.writeShort(0);
+        out.writeShort(2);
+
+        // public <init>() { super(); }
+        byte[] init_code = {(byte) ALOAD_0, (byte) INVOKESPECIAL,
+                (byte) (object_init >> 8), (byte) object_init,
+                (byte) RETURN};
+        out.writeShort(0x0001);
+        out.writeShort(init);
+        out.writeShort(init_descriptor);
+        out.writeShort(1);
+        writeCode(out, code_attribute, 1, 1, init_code, frames_attribute,
+                0, new byte[0]);
+
+        out.writeShort(0x0001);
+        out.writeShort(execute);
+        out.writeShort(execute_descriptor);
+        out.writeShort(1);
+        writeCode(out, code_attribute, 2, 2, execute_code, frames_attribute,
+                frame_count, execute_frames);
+
+        out.writeShort(0);
+        return result.toByteArray();
+    }
+
+    /**
+     * Writes a method's Code attribute, with a StackMapTable attribute if
+     * the code has branch targets.
+     *
+     * @param out         : stream to write to
+     * @param name        : index of the "Code" entry
+     * @param max_stack   : maximum depth of the operand stack
+     * @param max_locals  : number of local variables
+     * @param code        : method's code
+     * @param frames_name : index of the "StackMapTable" entry
+     * @param frame_count : number of the stack map frames
+     * @param frames      : the stack map frames
+     * @throws IOException : never
+     */
+    private static void writeCode(DataOutputStream out, int name,
+                                  int max_stack, int max_locals, byte[] code,
+                                  int frames_name, int frame_count,
+                                  byte[] frames) throws IOException {
+        int frames_length = frame_count == 0 ? 0 : 8 + frames.length;
+        out.writeShort(name);
+        out.writeInt(12 + code.length + frames_length);
+        out.writeShort(max_stack);
+        out.writeShort(max_locals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);
+        if (frame_count == 0) {
+            out.writeShort(0);
+            return;
+        }
+        out.writeShort(1);
+        out.writeShort(frames_name);
+        out.writeInt(2 + frames.length);
+        out.writeShort(frame_count);
+        out.write(frames);
+    }
+
+    /**
+     * Writes the code of the execute method.
+     *
+     * @param operations : program's operations
+     * @throws IOException : never
+     */
+    private void writeExecute(int[] operations) throws IOException {
+        int start_segment = memberEntry(11, classEntry(EXECUTOR),
+                "startSegment", "(I)Z");
+        int end_segment = memberEntry(11, classEntry(EXECUTOR),
+                "endSegment", "(I)V");
+        int rotate = memberEntry(11, classEntry(EXECUTOR), "rotate", "(I)V");
+        int sniff = memberEntry(11, classEntry(EXECUTOR), "sniff", "()V");
+        int go = memberEntry(11, classEntry(EXECUTOR), "go", "()V");
+        int eat = memberEntry(11, classEntry(EXECUTOR), "eat", "()V");
+
+        int segment = -1;
+        for (int operation : operations) {
+            int argument = CompiledProgram.getArgument(operation);
+            switch (CompiledProgram.getOpcode(operation)) {
+                case CompiledProgram.SEGMENT -> {
+                    if (segment >= 0) {
+                        writeCall(end_segment, segment);
+                    }
+                    segment++;
+                    writeCall(start_segment, argument);
+                    // if (!executor.startSegment(cost)) return;
+                    code.writeByte(IFNE);
+                    code.writeShort(4);
+                    code.writeByte(RETURN);
+                    writeFrame(code.size());
+                }
+                case CompiledProgram.ROTATE -> writeCall(rotate, argument);
+                case CompiledProgram.SNIFF -> writeCall(sniff);
+                case CompiledProgram.GO -> writeCall(go);
+                case CompiledProgram.EAT -> writeCall(eat);
+            }
+        }
+        if (segment >= 0) {
+            writeCall(end_segment, segment);
+        }
+        code.writeByte(RETURN);
+    }
+
+    /**
+     * Writes a call of an executor's method without arguments.
+     *
+     * @param method : method's constant pool entry
+     * @throws IOException : never
+     */
+    private void writeCall(int method) throws IOException {
+        code.writeByte(ALOAD_1);
+        code.writeByte(INVOKEINTERFACE);
+        code.writeShort(method);
+        code.writeByte(1);
+        code.writeByte(0);
+    }
+
+    /**
+     * Writes a call of an executor's method with an int argument.
+     *
+     * @param method   : method's constant pool entry
+     * @param argument : the argument
+     * @throws IOException : never
+     */
+    private void writeCall(int method, int argument) throws IOException {
+        code.writeByte(ALOAD_1);
+        if (argument <= 5) {
+            code.writeByte(ICONST_0 + argument);
+        } else if (argument <= Byte.MAX_VALUE) {
+            code.writeByte(BIPUSH);
+            code.writeByte(argument);
+        } else if (argument <= Short.MAX_VALUE) {
+            code.writeByte(SIPUSH);
+            code.writeShort(argument);
+        } else {
+            code.writeByte(LDC_W);
+            code.writeShort(integerEntry(argument));
+        }
+        code.writeByte(INVOKEINTERFACE);
+        code.writeShort(method);
+        code.writeByte(2);
+        code.writeByte(0);
+    }
+
+    /**
+     * Notes a branch target. Locals (this and the executor) and the empty
+     * stack are the same everywhere, so every frame is a same_frame.
+     *
+     * @param offset : target's offset in the code
+     * @throws IOException : never
+     */
+    private void writeFrame(int offset) throws IOException {
+        int delta = offset - last_frame - 1;
+        if (delta <= 63) {
+            frames.writeByte(delta);
+        } else {
+            frames.writeByte(251);
+            frames.writeShort(delta);
+        }
+        last_frame = offset;
+        frame_count++;
+    }
+
+    /**
+     * @param value : a string
+     * @return index of the string's Utf8 constant pool entry
+     * @throws IOException : never
+     */
+    private int utf8Entry(String value) throws IOException {
+        Integer index = pool_indices.get("U" + value);
+        if (index == null) {
+            pool.writeByte(1);
+            pool.writeUTF(value);
+            index = pool_count++;
+            pool_indices.put("U" + value, index);
+        }
+        return index;
+    }
+
+    /**
+     * @param value : an int
+     * @return index of the int's Integer constant pool entry
+     * @throws IOException : never
+     */
+    private int integerEntry(int value) throws IOException {
+        Integer index = pool_indices.get("I" + value);
+        if (index == null) {
+            pool.writeByte(3);
+            pool.writeInt(value);
+            index = pool_count++;
+            pool_indices.put("I" + value, index);
+        }
+        return index;
+    }
+
+    /**
+     * @param name : internal name of a class
+     * @return index of the class' Class constant pool entry
+     * @throws IOException : never
+     */
+    private int classEntry(String name) throws IOException {
+        Integer index = pool_indices.get("C" + name);
+        if (index == null) {
+            int name_index = utf8Entry(name);
+            pool.writeByte(7);
+            pool.writeShort(name_index);
+            index = pool_count++;
+            pool_indices.put("C" + name, index);
+        }
+        return index;
+    }
+
+    /**
+     * @param tag        : 10 - Methodref, 11 - InterfaceMethodref
+     * @param owner      : index of the method's class entry
+     * @param name       : method's name
+     * @param descriptor : method's descriptor
+     * @return index of the method's constant pool entry
+     * @throws IOException : never
+     */
+    private int memberEntry(int tag, int owner, String name,
+                            String descriptor) throws IOException {
+        String key = "M" + owner + "." + name + descriptor;
+        Integer index = pool_indices.get(key);
+        if (index == null) {
+            int name_index = utf8Entry(name);
+            int descriptor_index = utf8Entry(descriptor);
+            pool.writeByte(12);
+            pool.writeShort(name_index);
+            pool.writeShort(descriptor_index);
+            int name_and_type = pool_count++;
+            pool.writeByte(tag);
+            pool.writeShort(owner);
+            pool.writeShort(name_and_type);
+            index = pool_count++;
+            pool_indices.put(key, index);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,232 @@
+package inhabitants_of_the_world;
+
+/**
+ * Class representing a set of all Programs carried by living Robs.
+ * Programs are interned by their content - Robs with the same instructions
+ * share one Program object (and so one compiled form). The pool counts how
+ * many Robs carry each program and forgets a program when the last one of
+ * them dies. Once a given number of Robs carry a program, its class is
+ * generated (see ProgramGenerator) and Robs execute it instead of
+ * interpreting the program, until the program dies out. Programs of new
+ * Robs can be looked up by their instructions (see ProgramBuffer), so that
+ * a Program is created only for instructions nobody carries.
+ * Programs are kept in hash tables of chains linked through the programs
+ * themselves, so registering a Rob allocates nothing.
+ * Robs are born and die on many threads during a tiled round, so
+ * the programs are split into stripes by their hash codes and each stripe
+ * (with its program's counts) is locked on its own - threads wait for each
+ * other only when their programs fall into the same stripe. A class is
+ * generated by the thread whose Rob made its program reach the threshold,
+ * after it unlocks the stripe, so other Robs with programs in the stripe
+ * aren't held up by the generation.
+ *
+ * @author Adam Al-Hosam
+ */
+public class ProgramPool {
+    // number of the hash code's top bits choosing the stripe
+    private static final int STRIPE_BITS = 6;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Stripe[] stripes;
+    // number of Robs carrying a program, for which its class is generated
+    // (0 - programs are always interpreted)
+    private int generate_threshold;
+
+    /**
+     * Part of the pool with its own hash table and its own lock.
+     */
+    private static final class Stripe {
+        // first programs of the chains, chosen by the programs' hash codes
+        private Program[] heads = new Program[INITIAL_CAPACITY];
+        private int size;
+    }
+
+    /**
+     * Constructor that creates an empty pool.
+     */
+    public ProgramPool() {
+        stripes = new Stripe[1 << STRIPE_BITS];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Sets the number of Robs carrying a program, for which its class is
+     * generated. Has to be set before any Rob is registered.
+     *
+     * @param threshold : number of Robs (0 - programs are always
+     *                  interpreted)
+     */
+    public void setGenerateThreshold(int threshold) {
+        generate_threshold = threshold;
+    }
+
+    /**
+     * @param hash_code : hash code of a program's instructions
+     * @return the program's stripe
+     */
+    private Stripe stripeOf(int hash_code) {
+        return stripes[hash_code * 0x9e3779b9 >>> 32 - STRIPE_BITS];
+    }
+
+    /**
+     * @param stripe    : program's stripe
+     * @param hash_code : hash code of the program's instructions
+     * @return index of the program's chain in the stripe
+     */
+    private static int chainOf(Stripe stripe, int hash_code) {
+        return (hash_code ^ hash_code >>> 16) & (stripe.heads.length - 1);
+    }
+
+    /**
+     * Adds a program that isn't in the pool to its stripe, growing
+     * the stripe's table if it gets too full. The stripe has to be locked.
+     *
+     * @param stripe  : program's stripe
+     * @param program : the program
+     */
+    private static void insert(Stripe stripe, Program program) {
+        int capacity = stripe.heads.length;
+        if (stripe.size >= capacity - capacity / 4) {
+            Program[] old_heads = stripe.heads;
+            stripe.heads = new Program[2 * capacity];
+            for (Program head : old_heads) {
+                Program current = head;
+                while (current != null) {
+                    Program next = current.next_in_pool;
+                    link(stripe, current);
+                    current = next;
+                }
+            }
+        }
+        link(stripe, program);
+        stripe.size++;
+    }
+
+    /**
+     * Puts a program at the beginning of its chain.
+     *
+     * @param stripe  : program's stripe
+     * @param program : the program
+     */
+    private static void link(Stripe stripe, Program program) {
+        int chain = chainOf(stripe, program.hashCode());
+        program.next_in_pool = stripe.heads[chain];
+        stripe.heads[chain] = program;
+    }
+
+    /**
+     * Counts a new Rob carrying a program. The program's stripe has to be
+     * locked.
+     *
+     * @param program : the Rob's program
+     * @return true - if the program has just reached the threshold, so its
+     * class should be generated (after unlocking the stripe)
+     */
+    private boolean addReference(Program program) {
+        program.reference_count++;
+        return program.reference_count == generate_threshold;
+    }
+
+    /**
+     * Registers a new Rob carrying a given program.
+     *
+     * @param program : Rob's program
+     * @return the pool's program with the same instructions, which the Rob
+     * should carry instead of the given one
+     */
+    public Program acquire(Program program) {
+        Stripe stripe = stripeOf(program.hashCode());
+        Program result;
+        boolean should_generate;
+        synchronized (stripe) {
+            result = stripe.heads[chainOf(stripe, program.hashCode())];
+            while (result != null && !result.equals(program)) {
+                result = result.next_in_pool;
+            }
+            if (result == null) {
+                result = program;
+                insert(stripe, result);
+            }
+            should_generate = addReference(result);
+        }
+        if (should_generate) {
+            result.generate();
+        }
+        return result;
+    }
+
+    /**
+     * Registers a new Rob carrying a program with the instructions of
+     * a buffer. A new Program is created only if no living Rob carries
+     * these instructions.
+     *
+     * @param buffer : instructions of the Rob's program
+     * @return the pool's program with the instructions
+     */
+    public Program acquire(ProgramBuffer buffer) {
+        int hash_code = buffer.getHashCode();
+        Stripe stripe = stripeOf(hash_code);
+        Program result;
+        boolean should_generate;
+        synchronized (stripe) {
+            result = stripe.heads[chainOf(stripe, hash_code)];
+            while (result != null && !(result.hashCode() == hash_code &&
+                    result.hasInstructions(buffer.getInstructions(),
+                            buffer.getLength()))) {
+                result = result.next_in_pool;
+            }
+            if (result == null) {
+                result = buffer.toProgram();
+                insert(stripe, result);
+            }
+            should_generate = addReference(result);
+        }
+        if (should_generate) {
+            result.generate();
+        }
+        return result;
+    }
+
+    /**
+     * Unregisters a Rob (that died) carrying a given program.
+     *
+     * @param program : a program acquired before
+     */
+    public void release(Program program) {
+        Stripe stripe = stripeOf(program.hashCode());
+        synchronized (stripe) {
+            program.reference_count--;
+            if (program.reference_count > 0) {
+                return;
+            }
+            int chain = chainOf(stripe, program.hashCode());
+            if (stripe.heads[chain] == program) {
+                stripe.heads[chain] = program.next_in_pool;
+            } else {
+                Program previous = stripe.heads[chain];
+                while (previous.next_in_pool != program) {
+                    previous = previous.next_in_pool;
+                }
+                previous.next_in_pool = program.next_in_pool;
+            }
+            program.next_in_pool = null;
+            stripe.size--;
+            program.forgetGenerated();
+        }
+    }
+
+    /**
+     * @return number of distinct programs carried by living Robs
+     */
+    public int size() {
+        int result = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                result += stripe.size;
+            }
+        }
+        return result;
+    }
+}
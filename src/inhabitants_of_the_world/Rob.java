@@ -1,24 +1,31 @@
 package inhabitants_of_the_world;
 
-import error_handling.Guard;
-import randomizing.RandomExtensionBoolean;
+import checkpoint.CheckpointWriter;
+import output.OutputPipeline;
+import profiling.Profiler;
+import randomizing.RandomStream;
 import world.Board;
 import world.Field;
+import world.OutcomeCache;
 import world.Parameters;
 
-import java.util.Random;
-
 /**
  * Class representing a Rob
  *
  * @author Adam Al-Hosam
  */
 public class Rob {
-    private final Program program;
+    private Program program;
     private int direction; //0 - top, 1 - right, 2 - bottom, 3 - left
     private float energy;
     private int age;
     private Field field;
+    // Rob's own random stream, its children's streams are split from it
+    private final RandomStream random;
+    // links of the list of Robs standing on the same field (see Field)
+    private Rob previous_on_field;
+    private Rob next_on_field;
+    private boolean is_on_field_list;
 
     /**
      * Constructor that creates a new Rob with parameters specified in
@@ -27,12 +34,15 @@ public class Rob {
      *
      * @param starting_parameters : simulation parameters
      * @param field               : field, on which the Rob will be
+     * @param random              : Rob's random stream
+     * @param programs            : pool of the simulation's programs
      */
-    public Rob(Parameters starting_parameters, Field field) {
-        Random random = new Random();
-        program =
+    public Rob(Parameters starting_parameters, Field field,
+               RandomStream random, ProgramPool programs) {
+        this.random = random;
+        program = programs.acquire(
                 starting_parameters.getStartingProgram()
-                        .mutation(starting_parameters);
+                        .mutation(starting_parameters, random));
         energy = starting_parameters.getStartingEnergy();
         direction = random.nextInt(4);   // random choice of direction
         age = 0;
@@ -44,9 +54,33 @@ public class Rob {
      *
      * @param parent              : new Rob's parent
      * @param starting_parameters : simulation parameters
+     * @param programs            : pool of the simulation's programs
+     * @param buffer              : buffer for the mutated program
+     */
+    public Rob(Rob parent, Parameters starting_parameters,
+               ProgramPool programs, ProgramBuffer buffer) {
+        this.random = new RandomStream(0);
+        becomeDescendant(parent, starting_parameters, programs, buffer);
+    }
+
+    /**
+     * Makes the Rob (a new one or a dead one taken from a RobPool)
+     * a descendant of a given parent, without creating any object (unless
+     * its program's instructions are new, see ProgramPool).
+     *
+     * @param parent              : new Rob's parent
+     * @param starting_parameters : simulation parameters
+     * @param programs            : pool of the simulation's programs
+     * @param buffer              : buffer for the mutated program
      */
-    public Rob(Rob parent, Parameters starting_parameters) {
-        this.program = parent.program.mutation(starting_parameters);
+    private void becomeDescendant(Rob parent, Parameters starting_parameters,
+                                  ProgramPool programs,
+                                  ProgramBuffer buffer) {
+        parent.random.splitInto(this.random);
+        this.program = parent.program.mutateInto(starting_parameters, random,
+                buffer)
+                ? programs.acquire(buffer)
+                : programs.acquire(parent.program);
         this.energy =
                 starting_parameters.getParentsEnergyFraction() *
                         parent.getEnergy();
@@ -55,24 +89,40 @@ public class Rob {
         this.direction = parent.direction > 1
                 ? parent.direction - 2
                 : parent.direction + 2;
+        this.previous_on_field = null;
+        this.next_on_field = null;
+        this.is_on_field_list = false;
     }
 
     /**
-     * Rotates Rob by 90 degrees left.
+     * Constructor that creates a Rob with given attributes (read from
+     * a checkpoint).
+     *
+     * @param program   : Rob's program
+     * @param direction : Rob's direction
+     * @param energy    : Rob's energy
+     * @param age       : Rob's age
+     * @param field     : field, on which the Rob is
+     * @param random    : Rob's random stream
+     * @param programs  : pool of the simulation's programs
      */
-    private void instructionLeft() {
-        this.direction = (this.direction - 1) < 0
-                ? this.direction - 1 + 4
-                : this.direction - 1;
+    public Rob(Program program, int direction, float energy, int age,
+               Field field, RandomStream random, ProgramPool programs) {
+        this.program = programs.acquire(program);
+        this.direction = direction;
+        this.energy = energy;
+        this.age = age;
+        this.field = field;
+        this.random = random;
     }
 
     /**
-     * Rotates Rob by 90 degrees right.
+     * Rotates Rob by a multiple of 90 degrees right.
+     *
+     * @param quarter_turns : number of quarter turns clockwise (0-3)
      */
-    private void instructionRight() {
-        this.direction = (this.direction + 1) > 3
-                ? this.direction + 1 - 4
-                : this.direction + 1;
+    private void rotate(int quarter_turns) {
+        this.direction = (this.direction + quarter_turns) & 3;
     }
 
     /**
@@ -82,19 +132,7 @@ public class Rob {
      * @return field, that the Rob is facing
      */
     private Field getNextField(Board board) {
-        switch (this.direction) {
-            case 0:
-                return this.field.getFieldAbove(board);
-            case 1:
-                return this.field.getFieldToTheRight(board);
-            case 2:
-                return this.field.getFieldBelow(board);
-            case 3:
-                return this.field.getFieldToTheLeft(board);
-            default:
-                Guard.endProgramWithAMessage("Wrong direction");
-                return this.field;
-        }
+        return board.getNeighbour(this.field, this.direction << 1);
     }
 
     /**
@@ -118,7 +156,7 @@ public class Rob {
      * @param parameters : simulation parameters
      */
     private void performGoInstruction(Board board, Parameters parameters) {
-        wejdzNaPole(this.getNextField(board), parameters);
+        wejdzNaPole(this.getNextField(board), parameters, board);
     }
 
     /**
@@ -126,11 +164,18 @@ public class Rob {
      *
      * @param new_field  : field that the Rob is getting on
      * @param parameters : simulation parameters
+     * @param board      : simulation board
      */
-    private void wejdzNaPole(Field new_field, Parameters parameters) {
+    private void wejdzNaPole(Field new_field, Parameters parameters,
+                             Board board) {
+        boolean had_food = new_field.doesHaveFood();
         this.field.releaseARob(this);
         new_field.acceptARob(this, parameters);
+        board.robPlaced(new_field);
         this.field = new_field;
+        if (had_food && !new_field.doesHaveFood()) {
+            board.foodEaten(new_field.getIndex());
+        }
     }
 
     /**
@@ -140,14 +185,9 @@ public class Rob {
      * @param board : simulation_board
      */
     private void performSniffInstruction(Board board) {
-        if (this.field.getFieldAbove(board).doesHaveFood()) {
-            this.direction = 0;
-        } else if (this.field.getFieldToTheRight(board).doesHaveFood()) {
-            this.direction = 1;
-        } else if (this.field.getFieldBelow(board).doesHaveFood()) {
-            this.direction = 2;
-        } else if (this.field.getFieldToTheLeft(board).doesHaveFood()) {
-            this.direction = 3;
+        int food_direction = board.findFoodToSniff(this.field);
+        if (food_direction >= 0) {
+            this.direction = food_direction;
         }
     }
 
@@ -161,53 +201,81 @@ public class Rob {
      * @param parameters : simulation parameters
      */
     private void performEatInstruction(Board board, Parameters parameters) {
-        if (this.field.getFieldAbove(board).doesHaveFood()) {
-            wejdzNaPole(this.field.getFieldAbove(board), parameters);
-        } else if (this.field.getFieldAbove(board).getFieldToTheRight(board)
-                .doesHaveFood()) {
-            wejdzNaPole(this.field.getFieldAbove(board)
-                    .getFieldToTheRight(board), parameters);
-        } else if (this.field.getFieldToTheRight(board)
-                .doesHaveFood()) {
-            wejdzNaPole(this.field.getFieldToTheRight(board), parameters);
-        } else if (this.field.getFieldToTheRight(board)
-                .getFieldBelow(board).doesHaveFood()) {
-            wejdzNaPole(this.field.getFieldToTheRight(board)
-                    .getFieldBelow(board), parameters);
-        } else if (this.field.getFieldBelow(board).doesHaveFood()) {
-            wejdzNaPole(this.field.getFieldBelow(board), parameters);
-        } else if (this.field.getFieldBelow(board).getFieldToTheLeft(board)
-                .doesHaveFood()) {
-            wejdzNaPole(this.field.getFieldBelow(board)
-                    .getFieldToTheLeft(board), parameters);
-        } else if (this.field.getFieldToTheLeft(board).doesHaveFood()) {
-            wejdzNaPole(this.field.getFieldToTheLeft(board), parameters);
-        } else if (this.field.getFieldToTheLeft(board)
-                .getFieldAbove(board).doesHaveFood()) {
-            wejdzNaPole(this.field.getFieldToTheLeft(board)
-                    .getFieldAbove(board), parameters);
+        Field neighbour = board.findFoodToEat(this.field);
+        if (neighbour != null) {
+            wejdzNaPole(neighbour, parameters, board);
         }
     }
 
     /**
-     * Interprets an instruction by its id and performs it.
-     * After doing it, it takes an appropriate amount of energy.
+     * Performs an operation of a compiled program.
      *
-     * @param id         : instruction id
+     * @param operation  : operation to perform
      * @param parameters : simulation parameters
      * @param board      : simulation board
      */
-    private void performInstruction(char id, Parameters parameters,
-                                    Board board) {
-        assert (energy > 0);
-        switch (id) {
-            case 'l' -> instructionLeft();
-            case 'p' -> instructionRight();
-            case 'i' -> performGoInstruction(board, parameters);
-            case 'w' -> performSniffInstruction(board);
-            case 'j' -> performEatInstruction(board, parameters);
+    private void performOperation(int operation, Parameters parameters,
+                                  Board board) {
+        switch (CompiledProgram.getOpcode(operation)) {
+            case CompiledProgram.ROTATE ->
+                    rotate(CompiledProgram.getArgument(operation));
+            case CompiledProgram.SNIFF -> performSniffInstruction(board);
+            case CompiledProgram.GO -> performGoInstruction(board, parameters);
+            case CompiledProgram.EAT ->
+                    performEatInstruction(board, parameters);
+        }
+    }
+
+    /**
+     * Links the Rob as the first element of its field's rob list.
+     * Only Field should use it.
+     *
+     * @param old_first : previous first element of the list (or null)
+     */
+    public void linkOnField(Rob old_first) {
+        previous_on_field = null;
+        next_on_field = old_first;
+        if (old_first != null) {
+            old_first.previous_on_field = this;
+        }
+        is_on_field_list = true;
+    }
+
+    /**
+     * Removes the Rob from its field's rob list, linking its neighbours with
+     * each other. Only Field should use it.
+     */
+    public void unlinkFromField() {
+        if (previous_on_field != null) {
+            previous_on_field.next_on_field = next_on_field;
+        }
+        if (next_on_field != null) {
+            next_on_field.previous_on_field = previous_on_field;
         }
-        energy -= 1;
+        previous_on_field = null;
+        next_on_field = null;
+        is_on_field_list = false;
+    }
+
+    /**
+     * @return true - if the Rob is on its field's rob list, else false
+     */
+    public boolean isOnFieldList() {
+        return is_on_field_list;
+    }
+
+    /**
+     * @return the next Rob on the same field's list (or null)
+     */
+    public Rob getNextOnField() {
+        return next_on_field;
+    }
+
+    /**
+     * @return the previous Rob on the same field's list (or null)
+     */
+    public Rob getPreviousOnField() {
+        return previous_on_field;
     }
 
     /**
@@ -218,20 +286,22 @@ public class Rob {
     }
 
     /**
-     * Executes the whole Rob's program instruction after instruction. If
-     * at any moment the energy should fall below 0, then the Rob's energy is
-     * set to -1.
+     * Executes the whole Rob's program segment after segment - its outcome
+     * is taken from the board's cache if it can be, else its generated
+     * class is executed, if there is one, else its compiled form is
+     * interpreted. If at any moment the energy should fall below 0, then
+     * the Rob's energy is set to -1.
      *
      * @param parameters : simulation parameters
      * @param board      : simulation board
      */
     public void executeTheProgram(Parameters parameters, Board board) {
-        for (char instruction_id : this.program.getInstructions()) {
-            if (energy > 0) {
-                performInstruction(instruction_id, parameters, board);
+        if (!performMemoizedProgram(parameters, board)) {
+            GeneratedProgram generated = this.program.getGenerated();
+            if (generated != null) {
+                board.getRobExecutor().execute(this, generated, parameters);
             } else {
-                this.energy = -1;
-                break;
+                interpretTheProgram(parameters, board);
             }
         }
 
@@ -242,6 +312,96 @@ public class Rob {
         }
     }
 
+    /**
+     * Performs the Rob's program using the outcome of its execution from
+     * the board's cache (see world.OutcomeCache), without the round's cost:
+     * the Rob pays for the instructions before its move, moves (and maybe
+     * eats), turns and pays for the rest.
+     *
+     * @param parameters : simulation parameters
+     * @param board      : simulation board
+     * @return false if the outcome can't be memoized (or outcomes aren't
+     * memoized) - the Rob isn't changed then
+     */
+    private boolean performMemoizedProgram(Parameters parameters,
+                                           Board board) {
+        CompiledProgram compiled = this.program.getCompiled();
+        if (!OutcomeCache.canUse(compiled, energy)) {
+            return false;
+        }
+        int outcome = board.findOutcome(program, direction, field);
+        if (outcome == OutcomeCache.NOT_MEMOIZABLE) {
+            return false;
+        }
+
+        int cost_before_move = OutcomeCache.getCostBeforeMove(outcome);
+        this.energy = CompiledProgram.pay(energy, cost_before_move);
+        int neighbour = OutcomeCache.getNeighbour(outcome);
+        if (neighbour >= 0) {
+            wejdzNaPole(board.getNeighbour(field, neighbour), parameters,
+                    board);
+        }
+        this.direction = OutcomeCache.getDirection(outcome);
+        this.energy = CompiledProgram.pay(energy,
+                compiled.getCost() - cost_before_move);
+        if (Profiler.ENABLED) {
+            board.getProfiler().countProgram(compiled);
+        }
+        return true;
+    }
+
+    /**
+     * Interprets the Rob's compiled program, without the round's cost.
+     *
+     * @param parameters : simulation parameters
+     * @param board      : simulation board
+     */
+    private void interpretTheProgram(Parameters parameters, Board board) {
+        CompiledProgram compiled = this.program.getCompiled();
+        int[] code = compiled.getCode();
+        int pc = 0;
+        int segment = 0;
+        while (pc < code.length) {
+            if (!startSegment(CompiledProgram.getArgument(code[pc++]))) {
+                break;
+            }
+            while (pc < code.length && CompiledProgram.getOpcode(code[pc])
+                    != CompiledProgram.SEGMENT) {
+                performOperation(code[pc++], parameters, board);
+            }
+            endSegment(board, segment++);
+        }
+    }
+
+    /**
+     * Starts a segment of the Rob's program (see
+     * ProgramExecutor.startSegment).
+     *
+     * @param cost : segment's cost
+     * @return false if the Rob can't finish the segment
+     */
+    private boolean startSegment(int cost) {
+        if (!CompiledProgram.canFinish(energy, cost)) {
+            this.energy = -1;
+            return false;
+        }
+        this.energy = CompiledProgram.payInAdvance(energy, cost);
+        return true;
+    }
+
+    /**
+     * Ends a segment of the Rob's program (see ProgramExecutor.endSegment).
+     *
+     * @param board   : simulation board
+     * @param segment : segment's number
+     */
+    private void endSegment(Board board, int segment) {
+        this.energy -= 1;
+        if (Profiler.ENABLED) {
+            board.getProfiler().countSegment(program.getCompiled(), segment);
+        }
+    }
+
     /**
      * @return Rob's age
      */
@@ -256,6 +416,13 @@ public class Rob {
         return energy;
     }
 
+    /**
+     * @return Rob's program (it's immutable)
+     */
+    public Program getProgram() {
+        return program;
+    }
+
     /**
      * @return number of instructions in Rob's program
      */
@@ -264,23 +431,42 @@ public class Rob {
     }
 
     /**
-     * Method responsible for Rob's duplication. Creates a new Rob
-     * from an appropriate constructor and decreases the parent's energy.
+     * Method responsible for Rob's duplication. Reuses a dead Rob from
+     * the pool (or creates a new Rob if there is none) and decreases
+     * the parent's energy.
      *
      * @param parameters : simulation parameters
+     * @param programs   : pool of the simulation's programs
+     * @param robs       : pool of dead Robs
      * @return Rob - descendant
      */
-    public Rob duplicate(Parameters parameters) {
-        Rob result = new Rob(this, parameters);
+    public Rob duplicate(Parameters parameters, ProgramPool programs,
+                         RobPool robs) {
+        Rob result = robs.take();
+        if (result == null) {
+            result = new Rob(this, parameters, programs, robs.getBuffer());
+        } else {
+            result.becomeDescendant(this, parameters, programs,
+                    robs.getBuffer());
+        }
         this.energy *= (1 - parameters.getParentsEnergyFraction());
         return result;
     }
 
     /**
-     * Simulates Rob's death (removes it from the board)
+     * Simulates Rob's death (removes it from the board, gives its
+     * program back to the pool and puts the Rob in the pool of dead ones,
+     * so it mustn't be used after that).
+     *
+     * @param programs : pool of the simulation's programs
+     * @param robs     : pool of dead Robs
      */
-    public void die() {
+    public void die(ProgramPool programs, RobPool robs) {
         this.field.releaseARob(this);
+        programs.release(program);
+        this.program = null;
+        this.field = null;
+        robs.recycle(this);
     }
 
     /**
@@ -298,6 +484,8 @@ public class Rob {
      * First it randomly chooses if the Rob could duplicate and if it can -
      * - does it. Afterwards it executes the program and increases Rob's age.
      * Returns a boolean stating if the Rob survived the round.
+     * The board's stats are notified about the child, the Rob's death or
+     * the change of its energy.
      *
      * @param starting_parameters : simulation parameters
      * @param board               : simulation board
@@ -305,24 +493,34 @@ public class Rob {
      */
     public boolean tryToSurviveARound(Parameters starting_parameters,
                                       Board board) {
-        RandomExtensionBoolean los = new RandomExtensionBoolean();
-        if (canDuplicate(starting_parameters) && los
+        float energy_on_start = this.energy;
+        if (canDuplicate(starting_parameters) && random
                 .sampleBooleanWithProbability(starting_parameters
                         .getDuplicationProbability())) {
-            this.field.placeNextRob(this.duplicate(starting_parameters));
+            Rob child = this.duplicate(starting_parameters,
+                    board.getProgramPool(), board.getRobPool());
+            this.field.placeNextRob(child);
+            board.getStats().robBorn(child.getProgram(), child.getEnergy(),
+                    child.getAge());
         }
         executeTheProgram(starting_parameters, board);
         this.age++;
-        return this.energy >= 0;
+        if (this.energy < 0) {
+            board.getStats().robDied(program, energy_on_start, this.age);
+            return false;
+        }
+        board.getStats().robChanged(energy_on_start, this.energy);
+        return true;
     }
 
     /**
      * Helper method for toString(). Used to change the direction's id to
      * an appropriate string.
      *
+     * @param direction : direction's id
      * @return string representing a direction
      */
-    private String changeDirectionIdToString() {
+    private static String changeDirectionIdToString(int direction) {
         return switch (direction) {
             case 0 -> "top";
             case 1 -> "right";
@@ -332,14 +530,123 @@ public class Rob {
         };
     }
 
-    @Override
-    public String toString() {
+    /**
+     * Builds a Rob's string representation out of its attributes, so that
+     * engines that don't keep Rob objects print robs the same way.
+     *
+     * @param direction   : direction's id
+     * @param program     : Rob's program
+     * @param energy      : Rob's energy
+     * @param age         : Rob's age
+     * @param coordinates : coordinates of the Rob's field
+     * @return string representing a Rob
+     */
+    public static String representation(int direction, Program program,
+                                        float energy, int age,
+                                        String coordinates) {
         return "Rob{" +
-                "direction=" + changeDirectionIdToString() +
+                "direction=" + changeDirectionIdToString(direction) +
                 ", program=" + program +
                 ", energy=" + String.format("%.2f", energy) +
                 ", age=" + age +
-                ", field=" + field.getCoordinates() +
+                ", field=" + coordinates +
                 '}';
     }
+
+    /**
+     * Prints the Rob's state (the same as toString) through the output.
+     *
+     * @param output : simulation's output
+     */
+    public void printState(OutputPipeline output) {
+        output.printRob(direction, program, energy, age, field.getRow(),
+                field.getColumn());
+    }
+
+    /**
+     * @return the Rob as a migrant, which can be placed on another board
+     */
+    public Migrant toMigrant() {
+        return new Migrant(program, direction, energy, age, random);
+    }
+
+    /**
+     * Puts the Rob in a checkpoint.
+     *
+     * @param checkpoint : checkpoint being written
+     */
+    public void writeTo(CheckpointWriter checkpoint) {
+        checkpoint.putRob(program, direction, age, energy, random.getSeed(),
+                random.getGamma());
+    }
+
+    @Override
+    public String toString() {
+        return representation(direction, program, energy, age,
+                field.getCoordinates());
+    }
+
+    /**
+     * Class performing generated programs of a board's Robs, one Rob at
+     * a time.
+     */
+    public static final class Executor implements ProgramExecutor {
+        private final Board board;
+        private Parameters parameters;
+        private Rob rob;
+
+        /**
+         * Constructor that creates an executor for a given board.
+         *
+         * @param board : simulation board
+         */
+        public Executor(Board board) {
+            this.board = board;
+        }
+
+        /**
+         * Executes a Rob's generated program, without the round's cost.
+         *
+         * @param rob        : the Rob
+         * @param program    : the Rob's generated program
+         * @param parameters : simulation parameters
+         */
+        private void execute(Rob rob, GeneratedProgram program,
+                             Parameters parameters) {
+            this.rob = rob;
+            this.parameters = parameters;
+            program.execute(this);
+            this.rob = null;
+        }
+
+        @Override
+        public boolean startSegment(int cost) {
+            return rob.startSegment(cost);
+        }
+
+        @Override
+        public void rotate(int turns) {
+            rob.rotate(turns);
+        }
+
+        @Override
+        public void sniff() {
+            rob.performSniffInstruction(board);
+        }
+
+        @Override
+        public void go() {
+            rob.performGoInstruction(board, parameters);
+        }
+
+        @Override
+        public void eat() {
+            rob.performEatInstruction(board, parameters);
+        }
+
+        @Override
+        public void endSegment(int segment) {
+            rob.endSegment(board, segment);
+        }
+    }
 }
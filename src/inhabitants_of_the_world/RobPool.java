@@ -0,0 +1,50 @@
+package inhabitants_of_the_world;
+
+import java.util.Arrays;
+
+/**
+ * Class representing Robs that died and can be reused - a new Rob takes
+ * a dead one's object (with its random stream) instead of creating one, and
+ * its program is mutated in the pool's buffer (see ProgramBuffer), so
+ * a birth creates no objects unless the child's instructions are new.
+ * A board is simulated by one thread, so every board has its own pool and
+ * pools aren't synchronized.
+ *
+ * @author Adam Al-Hosam
+ */
+public class RobPool {
+    private Rob[] free = new Rob[16];
+    private int free_count;
+    private final ProgramBuffer buffer = new ProgramBuffer();
+
+    /**
+     * Puts a dead Rob in the pool. It mustn't be used anywhere else.
+     *
+     * @param rob : a dead Rob
+     */
+    void recycle(Rob rob) {
+        if (free_count == free.length) {
+            free = Arrays.copyOf(free, 2 * free_count);
+        }
+        free[free_count++] = rob;
+    }
+
+    /**
+     * @return a dead Rob to reuse, null if there is none
+     */
+    Rob take() {
+        if (free_count == 0) {
+            return null;
+        }
+        Rob result = free[--free_count];
+        free[free_count] = null;
+        return result;
+    }
+
+    /**
+     * @return buffer for mutated programs
+     */
+    public ProgramBuffer getBuffer() {
+        return buffer;
+    }
+}
@@ -0,0 +1,248 @@
+package output;
+
+import error_handling.Guard;
+import inhabitants_of_the_world.Program;
+import inhabitants_of_the_world.Rob;
+import world.Torus;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Class representing the simulation's output. The simulation thread only
+ * puts records (ready lines or raw Rob states) in a ring buffer, and
+ * a background thread formats them and writes them in big chunks, so
+ * printing a big population doesn't stop the simulation.
+ * There is one producer (the simulation thread) and one consumer (the
+ * writer), so the ring needs no locks - each side moves only its own
+ * position, and the other one reads it.
+ * <p>
+ * When the buffer is full, the policy decides what happens:
+ * "block" - the simulation waits for the writer,
+ * "drop" - records that don't fit are dropped,
+ * "sample" - while the buffer is more than half full, only every
+ * SAMPLE_RATE-th Rob's state is kept (lines always wait for space).
+ * The number of dropped records is reported on close.
+ *
+ * @author Adam Al-Hosam
+ */
+public class OutputPipeline {
+    private static final int LINE = 0;
+    private static final int ROB = 1;
+    private static final int BLOCK = 0;
+    private static final int DROP = 1;
+    private static final int SAMPLE = 2;
+    private static final int SAMPLE_RATE = 10;
+    // how long a waiting thread sleeps before it checks the ring again
+    private static final long WAIT_NANOS = 50_000;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final int policy;
+    // ring of records, a slot is (position & mask)
+    private final int mask;
+    private final int[] kind;
+    private final String[] line;
+    private final int[] direction;
+    private final Program[] program;
+    private final float[] energy;
+    private final int[] age;
+    private final int[] row;
+    private final int[] column;
+    // next record to write (moved by the writer) and to put (moved by
+    // the simulation thread)
+    private volatile long head;
+    private volatile long tail;
+    private volatile boolean is_closed;
+    private long dropped;
+    private long sampled;
+    private final Writer out;
+    private final Thread writer;
+
+    /**
+     * Constructor that opens the output and starts the writer.
+     *
+     * @param path     : path of the output file, empty - standard output
+     * @param gzip     : should the output be compressed
+     * @param capacity : minimal number of records in the buffer
+     * @param policy   : "block", "drop" or "sample"
+     */
+    public OutputPipeline(String path, boolean gzip, int capacity,
+                          String policy) {
+        this.policy = switch (policy) {
+            case "drop" -> DROP;
+            case "sample" -> SAMPLE;
+            default -> BLOCK;
+        };
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        mask = size - 1;
+        kind = new int[size];
+        line = new String[size];
+        direction = new int[size];
+        program = new Program[size];
+        energy = new float[size];
+        age = new int[size];
+        row = new int[size];
+        column = new int[size];
+        out = open(path, gzip);
+
+        writer = new Thread(this::writeRecords, "output-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Opens the output stream.
+     *
+     * @param path : path of the output file, empty - standard output
+     * @param gzip : should the output be compressed
+     * @return buffered writer of the output
+     */
+    private static Writer open(String path, boolean gzip) {
+        try {
+            OutputStream stream = path.isEmpty()
+                    ? System.out
+                    : new FileOutputStream(path);
+            if (gzip) {
+                stream = new GZIPOutputStream(stream, WRITE_BUFFER_SIZE);
+            }
+            return new BufferedWriter(new OutputStreamWriter(stream),
+                    WRITE_BUFFER_SIZE);
+        } catch (IOException e) {
+            Guard.endProgramWithAMessage("Can't open the output: " +
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Puts a line in the buffer.
+     *
+     * @param text : line to print (without the end of line)
+     */
+    public void printLine(String text) {
+        int slot = reserve(policy != DROP);
+        if (slot < 0) {
+            return;
+        }
+        kind[slot] = LINE;
+        line[slot] = text;
+        tail = tail + 1;
+    }
+
+    /**
+     * Puts a Rob's state in the buffer, it will be printed like Rob's
+     * toString.
+     *
+     * @param direction : Rob's direction
+     * @param program   : Rob's program
+     * @param energy    : Rob's energy
+     * @param age       : Rob's age
+     * @param row       : row of the Rob's field
+     * @param column    : column of the Rob's field
+     */
+    public void printRob(int direction, Program program, float energy,
+                         int age, int row, int column) {
+        if (policy == SAMPLE && tail - head > mask / 2 &&
+                sampled++ % SAMPLE_RATE != 0) {
+            dropped++;
+            return;
+        }
+        int slot = reserve(policy == BLOCK || policy == SAMPLE);
+        if (slot < 0) {
+            return;
+        }
+        kind[slot] = ROB;
+        this.direction[slot] = direction;
+        this.program[slot] = program;
+        this.energy[slot] = energy;
+        this.age[slot] = age;
+        this.row[slot] = row;
+        this.column[slot] = column;
+        tail = tail + 1;
+    }
+
+    /**
+     * Finds a free slot for the next record.
+     *
+     * @param should_wait : should it wait for the writer if the buffer
+     *                    is full
+     * @return the slot, -1 if the record has to be dropped
+     */
+    private int reserve(boolean should_wait) {
+        long position = tail;
+        while (position - head > mask) {
+            if (!should_wait) {
+                dropped++;
+                return -1;
+            }
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+        return (int) (position & mask);
+    }
+
+    /**
+     * Writer's loop - writes records until the pipeline is closed and
+     * the buffer is empty. The output is flushed whenever the writer
+     * catches up with the simulation.
+     */
+    private void writeRecords() {
+        try {
+            boolean should_flush = false;
+            while (true) {
+                long position = head;
+                if (position == tail) {
+                    if (should_flush) {
+                        out.flush();
+                        should_flush = false;
+                    }
+                    if (is_closed && position == tail) {
+                        break;
+                    }
+                    LockSupport.parkNanos(WAIT_NANOS);
+                    continue;
+                }
+
+                int slot = (int) (position & mask);
+                if (kind[slot] == LINE) {
+                    out.write(line[slot]);
+                    line[slot] = null;
+                } else {
+                    out.write(Rob.representation(direction[slot],
+                            program[slot], energy[slot], age[slot],
+                            Torus.coordinates(row[slot], column[slot])));
+                    program[slot] = null;
+                }
+                out.write('\n');
+                head = position + 1;
+                should_flush = true;
+            }
+            out.close();
+        } catch (IOException e) {
+            Guard.endProgramWithAMessage("Can't write the output: " +
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Waits until every record is written and closes the output.
+     */
+    public void close() {
+        is_closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped > 0) {
+            System.err.println("Output: " + dropped +
+                    " records dropped, the writer fell behind");
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package profiling;
+
+import inhabitants_of_the_world.CompiledProgram;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Class that measures a simulation - how long the phases of every round
+ * take and how many instructions of every kind ("lpiwj") the robs perform.
+ * After every round a RoundEvent is committed to the Java Flight Recorder
+ * and the measurements are added up for a summary.
+ * <p>
+ * Profiling is turned on with -Drobs.profile=true. ENABLED is a constant,
+ * so when it's false every "if (Profiler.ENABLED)" is removed by the JIT
+ * and the simulation isn't slower at all.
+ * Instructions are counted by segments of compiled programs: every
+ * instruction of a segment that a rob finishes is counted (a rob that
+ * can't finish a segment dies, so its last instructions aren't). Hits and
+ * misses of the outcome caches are counted too, if they are used.
+ * Memory allocated in every phase is measured too (by the thread that
+ * performs the simulation and the threads processing tiles of a round),
+ * so it can be checked that rounds don't allocate anything.
+ *
+ * @author Adam Al-Hosam
+ */
+public class Profiler {
+    public static final boolean ENABLED = Boolean.getBoolean("robs.profile");
+
+    // phases of a round
+    public static final int ROUND = 0;
+    public static final int STATS = 1;
+    public static final int PRINT = 2;
+    private static final String[] PHASE_NAMES = {"round", "stats", "print"};
+    // null if the JVM can't measure allocated memory
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ENABLED ? createThreadBean() : null;
+
+    // time of the end of the last phase
+    private long last_time;
+    // memory allocated by the thread until the end of the last phase
+    private long last_allocated;
+    private final long[] phase_times = new long[PHASE_NAMES.length];
+    private final long[] phase_allocations = new long[PHASE_NAMES.length];
+    private final long[] instruction_counts =
+            new long[CompiledProgram.INSTRUCTIONS.length()];
+    // sums since the last summary
+    private final long[] phase_sums = new long[PHASE_NAMES.length];
+    private final long[] allocation_sums = new long[PHASE_NAMES.length];
+    private final long[] instruction_sums =
+            new long[CompiledProgram.INSTRUCTIONS.length()];
+    // hits and misses of the outcome caches in the round and since
+    // the last summary
+    private long outcome_hits;
+    private long outcome_misses;
+    private long outcome_hit_sum;
+    private long outcome_miss_sum;
+    private int first_summed_round = -1;
+    private int last_summed_round;
+
+    /**
+     * @return bean measuring memory allocated by threads, null if the JVM
+     * can't do it
+     */
+    private static com.sun.management.ThreadMXBean createThreadBean() {
+        if (!(ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean result) ||
+                !result.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        result.setThreadAllocatedMemoryEnabled(true);
+        return result;
+    }
+
+    /**
+     * @return number of bytes allocated by the current thread so far (0 if
+     * it can't be measured)
+     */
+    public static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Adds the instructions of a finished segment to given counts.
+     *
+     * @param counts  : numbers of every instruction
+     * @param program : program the segment belongs to
+     * @param segment : segment's number
+     */
+    public static void countSegment(long[] counts, CompiledProgram program,
+                                    int segment) {
+        int[] segment_counts = program.getSegmentCounts();
+        int start = segment * counts.length;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += segment_counts[start + i];
+        }
+    }
+
+    /**
+     * Adds the instructions of a finished segment to the current round.
+     *
+     * @param program : program the segment belongs to
+     * @param segment : segment's number
+     */
+    public void countSegment(CompiledProgram program, int segment) {
+        countSegment(instruction_counts, program, segment);
+    }
+
+    /**
+     * Adds the instructions of every segment of a program (that a rob has
+     * finished) to given counts.
+     *
+     * @param counts  : numbers of every instruction
+     * @param program : the program
+     */
+    public static void countProgram(long[] counts, CompiledProgram program) {
+        int segment_count = program.getSegmentCounts().length /
+                counts.length;
+        for (int segment = 0; segment < segment_count; segment++) {
+            countSegment(counts, program, segment);
+        }
+    }
+
+    /**
+     * Adds the instructions of a finished program to the current round.
+     *
+     * @param program : the program
+     */
+    public void countProgram(CompiledProgram program) {
+        countProgram(instruction_counts, program);
+    }
+
+    /**
+     * Adds lookups of an outcome cache (see world.OutcomeCache) to
+     * the current round.
+     *
+     * @param hits   : number of lookups that found the outcome
+     * @param misses : number of lookups that didn't
+     */
+    public void countOutcomeLookups(long hits, long misses) {
+        outcome_hits += hits;
+        outcome_misses += misses;
+    }
+
+    /**
+     * Adds instructions counted elsewhere (e.g. on a tile) to the current
+     * round and clears them.
+     *
+     * @param counts : numbers of every instruction
+     */
+    public void takeInstructionCounts(long[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            instruction_counts[i] += counts[i];
+            counts[i] = 0;
+        }
+    }
+
+    /**
+     * Adds memory allocated by another thread (e.g. processing a tile) to
+     * the current phase.
+     *
+     * @param bytes : number of allocated bytes
+     */
+    public void addAllocation(long bytes) {
+        last_allocated -= bytes;
+    }
+
+    /**
+     * @return new array for counting instructions
+     */
+    public static long[] newInstructionCounts() {
+        return new long[CompiledProgram.INSTRUCTIONS.length()];
+    }
+
+    /**
+     * Starts measuring a round.
+     */
+    public void startRound() {
+        last_time = System.nanoTime();
+        last_allocated = allocatedBytes();
+    }
+
+    /**
+     * Ends a phase of the round - the next one starts now.
+     *
+     * @param phase : ROUND, STATS or PRINT
+     */
+    public void endPhase(int phase) {
+        long time = System.nanoTime();
+        phase_times[phase] += time - last_time;
+        last_time = time;
+        long allocated = allocatedBytes();
+        phase_allocations[phase] += allocated - last_allocated;
+        last_allocated = allocated;
+    }
+
+    /**
+     * Ends the round - commits its event and adds it to the summary.
+     *
+     * @param round : round's number
+     * @param robs  : number of robs after the round
+     */
+    public void endRound(int round, int robs) {
+        RoundEvent event = new RoundEvent();
+        if (event.shouldCommit()) {
+            event.round = round;
+            event.robs = robs;
+            event.round_time = phase_times[ROUND];
+            event.stats_time = phase_times[STATS];
+            event.print_time = phase_times[PRINT];
+            event.round_allocation = phase_allocations[ROUND];
+            event.stats_allocation = phase_allocations[STATS];
+            event.print_allocation = phase_allocations[PRINT];
+            event.l = instruction_counts[0];
+            event.p = instruction_counts[1];
+            event.i = instruction_counts[2];
+            event.w = instruction_counts[3];
+            event.j = instruction_counts[4];
+            event.outcome_hits = outcome_hits;
+            event.outcome_misses = outcome_misses;
+            event.commit();
+        }
+
+        if (first_summed_round < 0) {
+            first_summed_round = round;
+        }
+        last_summed_round = round;
+        for (int i = 0; i < phase_times.length; i++) {
+            phase_sums[i] += phase_times[i];
+            phase_times[i] = 0;
+            allocation_sums[i] += phase_allocations[i];
+            phase_allocations[i] = 0;
+        }
+        for (int i = 0; i < instruction_counts.length; i++) {
+            instruction_sums[i] += instruction_counts[i];
+            instruction_counts[i] = 0;
+        }
+        outcome_hit_sum += outcome_hits;
+        outcome_miss_sum += outcome_misses;
+        outcome_hits = 0;
+        outcome_misses = 0;
+    }
+
+    /**
+     * Returns a summary of the rounds since the last one and starts a new
+     * one: average times of the phases and numbers of instructions.
+     *
+     * @return the summary as a line
+     */
+    public String summary() {
+        StringBuilder result = new StringBuilder("PROFILE rounds: ");
+        if (first_summed_round < 0) {
+            return result.append("none").toString();
+        }
+        int round_count = last_summed_round - first_summed_round + 1;
+        result.append(first_summed_round).append('-')
+                .append(last_summed_round).append(", ms per round -");
+        for (int i = 0; i < phase_sums.length; i++) {
+            result.append(' ').append(PHASE_NAMES[i]).append(": ")
+                    .append(String.format("%.3f",
+                            phase_sums[i] / 1e6 / round_count));
+            phase_sums[i] = 0;
+        }
+        result.append(", bytes allocated per round -");
+        for (int i = 0; i < allocation_sums.length; i++) {
+            result.append(' ').append(PHASE_NAMES[i]).append(": ")
+                    .append(allocation_sums[i] / round_count);
+            allocation_sums[i] = 0;
+        }
+        result.append(", instructions -");
+        for (int i = 0; i < instruction_sums.length; i++) {
+            result.append(' ').append(CompiledProgram.INSTRUCTIONS.charAt(i))
+                    .append(": ").append(instruction_sums[i]);
+            instruction_sums[i] = 0;
+        }
+        long lookups = outcome_hit_sum + outcome_miss_sum;
+        if (lookups > 0) {
+            result.append(", outcome cache - hits: ").append(outcome_hit_sum)
+                    .append(" misses: ").append(outcome_miss_sum)
+                    .append(" hit rate: ").append(String.format("%.1f%%",
+                            100.0 * outcome_hit_sum / lookups));
+            outcome_hit_sum = 0;
+            outcome_miss_sum = 0;
+        }
+        first_summed_round = -1;
+        return result.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event committed by the Profiler after every round:
+ * how long the round's phases took, how much memory they allocated and how
+ * many instructions of every kind the robs performed in the round (and how
+ * many outcomes were found in the outcome caches).
+ *
+ * @author Adam Al-Hosam
+ */
+@Name("robs.Round")
+@Label("Round")
+@Category("Robs")
+@Description("Times of a round's phases and instructions performed in it")
+@StackTrace(false)
+public class RoundEvent extends Event {
+    @Label("Round")
+    int round;
+
+    @Label("Robs")
+    @Description("Number of robs after the round")
+    int robs;
+
+    @Label("Round Time")
+    @Description("Time of performing the round (wykonajTure)")
+    @Timespan(Timespan.NANOSECONDS)
+    long round_time;
+
+    @Label("Stats Time")
+    @Description("Time of collecting the stats and updating the fields")
+    @Timespan(Timespan.NANOSECONDS)
+    long stats_time;
+
+    @Label("Print Time")
+    @Description("Time of printing the stats and the simulation's state")
+    @Timespan(Timespan.NANOSECONDS)
+    long print_time;
+
+    @Label("Round Allocation")
+    @Description("Memory allocated while performing the round")
+    @DataAmount(DataAmount.BYTES)
+    long round_allocation;
+
+    @Label("Stats Allocation")
+    @Description("Memory allocated while collecting the stats")
+    @DataAmount(DataAmount.BYTES)
+    long stats_allocation;
+
+    @Label("Print Allocation")
+    @Description("Memory allocated while printing")
+    @DataAmount(DataAmount.BYTES)
+    long print_allocation;
+
+    @Label("l")
+    long l;
+
+    @Label("p")
+    long p;
+
+    @Label("i")
+    long i;
+
+    @Label("w")
+    long w;
+
+    @Label("j")
+    long j;
+
+    @Label("Outcome Hits")
+    @Description("Programs whose outcome was found in an outcome cache")
+    long outcome_hits;
+
+    @Label("Outcome Misses")
+    @Description("Programs whose outcome wasn't found in an outcome cache")
+    long outcome_misses;
+}
@@ -0,0 +1,166 @@
+package randomizing;
+
+/**
+ * A fast, splittable random number generator (SplitMix64 - the algorithm
+ * behind java.util.SplittableRandom). A simulation creates one stream from
+ * its master seed and every Rob gets its own stream split from another one,
+ * so the results depend only on the seed and not on the order in which
+ * threads run.
+ * Unlike SplittableRandom, the state (seed and gamma) can be read and set,
+ * so it can be kept in arrays and saved with the rest of the simulation.
+ * Objects of this class are not thread-safe.
+ *
+ * @author Adam Al-Hosam
+ */
+public class RandomStream {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    private long gamma;
+
+    /**
+     * Constructor that creates a stream from a master seed.
+     *
+     * @param seed : master seed
+     */
+    public RandomStream(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /**
+     * Constructor that creates a stream with a given state.
+     *
+     * @param seed  : stream's seed
+     * @param gamma : stream's gamma (has to be odd)
+     */
+    public RandomStream(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Mixes bits of a seed into a random long.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Mixes bits of a seed into a random int.
+     */
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    /**
+     * Computes a gamma for a new stream - an odd number with enough bit
+     * transitions to give good quality.
+     */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+
+    /**
+     * @return the next seed of the stream
+     */
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    /**
+     * @return a random long
+     */
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    /**
+     * @return a random int
+     */
+    public int nextInt() {
+        return mix32(nextSeed());
+    }
+
+    /**
+     * Returns a random int from [0, bound) - every value with the same chance.
+     *
+     * @param bound : upper bound (has to be positive)
+     * @return a random int from [0, bound)
+     */
+    public int nextInt(int bound) {
+        int r = nextInt();
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return r & m;
+        }
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1)
+            ;
+        return r;
+    }
+
+    /**
+     * @return a random float from [0, 1)
+     */
+    public float nextFloat() {
+        return (nextInt() >>> 8) * 0x1.0p-24f;
+    }
+
+    /**
+     * Returns true with pr chance.
+     *
+     * @param pr : probability to return true
+     * @return result of sampling
+     */
+    public boolean sampleBooleanWithProbability(float pr) {
+        return nextFloat() < pr;
+    }
+
+    /**
+     * Creates a new stream, independent of this one.
+     *
+     * @return the new stream
+     */
+    public RandomStream split() {
+        return new RandomStream(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * Works like split, but sets a given stream's state instead of creating
+     * a new object.
+     *
+     * @param child : stream that becomes the new stream
+     */
+    public void splitInto(RandomStream child) {
+        child.setState(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * @return stream's seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return stream's gamma
+     */
+    public long getGamma() {
+        return gamma;
+    }
+
+    /**
+     * @param seed  : stream's new seed
+     * @param gamma : stream's new gamma
+     */
+    public void setState(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+}
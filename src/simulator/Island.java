@@ -0,0 +1,115 @@
+package simulator;
+
+import inhabitants_of_the_world.Migrant;
+import randomizing.RandomStream;
+import world.Board;
+import world.Migration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Class representing one of the boards of the island mode, simulated by
+ * its own thread. Every migration_every rounds some of its robs leave to
+ * other islands and the robs that came from them are placed on it.
+ * Robs are sent through the receiving island's queue of migrants, which
+ * is lock-free, so islands never wait for each other - migrants that
+ * arrive after an island's migration wait for the next one.
+ *
+ * @author Adam Al-Hosam
+ */
+class Island implements Migration {
+    private final int number;
+    private final Board board;
+    // every island, this one included
+    private final Island[] islands;
+    private final boolean is_ring;
+    private final int migration_every;
+    private final float migration_rate;
+    // decides which robs leave, where they go and where they land
+    private final RandomStream random;
+    // migrants sent to this island, not placed on it yet
+    private final ConcurrentLinkedQueue<List<Migrant>> arrivals;
+
+    /**
+     * Constructor that creates an island.
+     *
+     * @param number          : island's number in islands
+     * @param board           : island's board
+     * @param islands         : every island
+     * @param is_ring         : do robs go only to the next island
+     * @param migration_every : how many rounds pass between migrations
+     * @param migration_rate  : probability that a rob leaves
+     * @param random          : island's random stream of the migration
+     */
+    Island(int number, Board board, Island[] islands, boolean is_ring,
+           int migration_every, float migration_rate, RandomStream random) {
+        this.number = number;
+        this.board = board;
+        this.islands = islands;
+        this.is_ring = is_ring;
+        this.migration_every = migration_every;
+        this.migration_rate = migration_rate;
+        this.random = random;
+        arrivals = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * @return island's board
+     */
+    Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Sends robs leaving the board to other islands and places the robs
+     * that have come.
+     *
+     * @param board        : island's board
+     * @param round_number : number of the finished round
+     */
+    @Override
+    public void afterRound(Board board, int round_number) {
+        if (round_number % migration_every != 0 || islands.length == 1) {
+            return;
+        }
+
+        List<Migrant> emigrants = board.takeEmigrants(migration_rate,
+                random);
+        if (is_ring) {
+            send((number + 1) % islands.length, emigrants);
+        } else {
+            List<List<Migrant>> groups = new ArrayList<>();
+            for (int i = 0; i < islands.length; i++) {
+                groups.add(new ArrayList<>());
+            }
+            for (Migrant migrant : emigrants) {
+                // any island but this one
+                int destination = random.nextInt(islands.length - 1);
+                if (destination >= number) {
+                    destination++;
+                }
+                groups.get(destination).add(migrant);
+            }
+            for (int i = 0; i < islands.length; i++) {
+                send(i, groups.get(i));
+            }
+        }
+
+        List<Migrant> immigrants;
+        while ((immigrants = arrivals.poll()) != null) {
+            board.acceptImmigrants(immigrants, random);
+        }
+    }
+
+    /**
+     * @param destination : number of the receiving island
+     * @param migrants    : robs sent to it
+     */
+    private void send(int destination, List<Migrant> migrants) {
+        if (!migrants.isEmpty()) {
+            islands[destination].arrivals.add(migrants);
+        }
+    }
+}
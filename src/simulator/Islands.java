@@ -0,0 +1,77 @@
+package simulator;
+
+import error_handling.Guard;
+import randomizing.RandomStream;
+import world.Board;
+import world.BoardLoader;
+import world.Parameters;
+
+import java.io.FileNotFoundException;
+import java.util.List;
+
+/**
+ * Island mode - several boards made from the same template, each simulated
+ * by its own thread, with robs migrating between them (see Island).
+ * Island number i (counted from 1) gets its own seed, split from the master
+ * seed, and writes its output to "output.i". Islands don't wait for each
+ * other, so (unlike a single board) the results depend on how fast
+ * the islands are.
+ *
+ * @author Adam Al-Hosam
+ */
+public class Islands {
+
+    /**
+     * Performs the simulation of every island and waits until all of
+     * them end.
+     *
+     * @param template        : board read from a file
+     * @param parameters_path : path of the parameters file
+     * @param parameters      : parameters read from it
+     */
+    public static void run(BoardLoader template, String parameters_path,
+                           Parameters parameters)
+            throws FileNotFoundException {
+        if (parameters.getOutput().isEmpty()) {
+            Guard.endProgramWithAMessage("The island mode needs the " +
+                    "output parameter (every island writes its own file)");
+        }
+        if (!parameters.getCheckpoint().isEmpty()) {
+            Guard.endProgramWithAMessage("Checkpoints can't be written in " +
+                    "the island mode");
+        }
+
+        List<String> base = Parameters.readLines(parameters_path);
+        RandomStream master = new RandomStream(parameters.getSeed());
+        Island[] islands = new Island[parameters.getIslands()];
+        Parameters[] island_parameters = new Parameters[islands.length];
+        for (int i = 0; i < islands.length; i++) {
+            island_parameters[i] = new Parameters(Sweep.override(base,
+                    List.of(new String[]{"seed", "" + master.nextLong()},
+                            new String[]{"output", parameters.getOutput() +
+                                    "." + (i + 1)})));
+            islands[i] = new Island(i, new Board(template), islands,
+                    parameters.getMigrationTopology().equals("ring"),
+                    parameters.getMigrationEvery(),
+                    parameters.getMigrationRate(), master.split());
+        }
+
+        Thread[] threads = new Thread[islands.length];
+        for (int i = 0; i < islands.length; i++) {
+            Island island = islands[i];
+            Parameters current = island_parameters[i];
+            threads[i] = new Thread(() -> island.getBoard()
+                    .performTheSimulation(current, null, island),
+                    "island-" + (i + 1));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
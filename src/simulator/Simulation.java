@@ -1,17 +1,19 @@
 package simulator;
 
+import error_handling.BoardFormatException;
 import error_handling.Guard;
 import world.Board;
+import world.BoardLoader;
 import world.Parameters;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
 
 
 public class Simulation {
 
     public static void main(String[] args) {
         try {
-            Board world = new Board(args[0]);
+            BoardLoader template = new BoardLoader(args[0]);
             Parameters world_parameters = new Parameters(args[1]);
             if (!world_parameters.getStartingProgram()
                     .doesOnlyHaveValidInstructions(world_parameters)) {
@@ -19,8 +21,21 @@ public class Simulation {
                         "starting program that do not exist in " +
                         "valid_instructions\n");
             }
-            world.performTheSimulation(world_parameters);
-        } catch (FileNotFoundException e) {
+            if (world_parameters.getIslands() > 1) {
+                if (args.length > 2) {
+                    Guard.endProgramWithAMessage("A checkpoint can't be " +
+                            "restored in the island mode");
+                }
+                Islands.run(template, args[1], world_parameters);
+                return;
+            }
+            // the third argument - a checkpoint to continue from
+            new Board(template).performTheSimulation(world_parameters,
+                    args.length > 2 ? args[2] : null, null);
+        } catch (BoardFormatException e) {
+            Guard.endProgramWithAMessage("Not a valid board in file " +
+                    args[0] + ", " + e.getMessage());
+        } catch (IOException e) {
             e.printStackTrace();
         }
 
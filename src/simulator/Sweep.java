@@ -0,0 +1,261 @@
+package simulator;
+
+import error_handling.BoardFormatException;
+import error_handling.Guard;
+import world.Board;
+import world.BoardLoader;
+import world.Parameters;
+
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameter sweep - runs many simulations of the same board with different
+ * parameters at the same time.
+ * Usage: Sweep board base_parameters sweep_file results_file [threads]
+ * <p>
+ * Every line of the sweep file is either an axis of a grid:
+ * "name value value ...", or a run of a list: "run name=value ...".
+ * Every run of the list (or, without runs, the base parameters) is combined
+ * with every point of the grid - the values override the base parameters.
+ * Empty lines and lines starting with '#' are skipped.
+ * <p>
+ * The board is read once and shared by all simulations as a template.
+ * The simulations are performed (without printing) by a fixed number of
+ * threads and a summary of every finished one - its overrides, time and
+ * stats after the last round - is written to the results file by a single
+ * writer thread, in the order they finish.
+ *
+ * @author Adam Al-Hosam
+ */
+public class Sweep {
+
+    /**
+     * Reads a sweep file.
+     *
+     * @param path : path of the sweep file
+     * @return overrides ({name, value}) of every simulation
+     */
+    private static List<List<String[]>> readSweep(String path)
+            throws FileNotFoundException {
+        List<List<String[]>> runs = new ArrayList<>();
+        List<List<String[]>> result = new ArrayList<>();
+        result.add(new ArrayList<>());
+
+        for (String line : Parameters.readLines(path)) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] data = line.split("\\s+");
+            if (data[0].equals("run")) {
+                List<String[]> run = new ArrayList<>();
+                for (int i = 1; i < data.length; i++) {
+                    String[] override = data[i].split("=", 2);
+                    if (override.length != 2) {
+                        Guard.endProgramWithAMessage("Not valid sweep " +
+                                "line - " + line);
+                    }
+                    run.add(override);
+                }
+                runs.add(run);
+                continue;
+            }
+            if (data.length < 2) {
+                Guard.endProgramWithAMessage("Not valid sweep line - " +
+                        line);
+            }
+            // every point so far with every value of the axis
+            List<List<String[]>> grid = new ArrayList<>();
+            for (List<String[]> point : result) {
+                for (int i = 1; i < data.length; i++) {
+                    List<String[]> next = new ArrayList<>(point);
+                    next.add(new String[]{data[0], data[i]});
+                    grid.add(next);
+                }
+            }
+            result = grid;
+        }
+
+        if (runs.isEmpty()) {
+            return result;
+        }
+        List<List<String[]>> combined = new ArrayList<>();
+        for (List<String[]> run : runs) {
+            for (List<String[]> point : result) {
+                List<String[]> next = new ArrayList<>(run);
+                next.addAll(point);
+                combined.add(next);
+            }
+        }
+        return combined;
+    }
+
+    /**
+     * Replaces values of the base parameters with given ones. Parameters
+     * missing in the base (extension parameters) are added.
+     *
+     * @param base      : lines of the base parameters file
+     * @param overrides : {name, value} pairs
+     * @return lines of the parameters
+     */
+    static List<String> override(List<String> base,
+                                 List<String[]> overrides) {
+        List<String> result = new ArrayList<>(base);
+        for (String[] override : overrides) {
+            String line = override[0] + " " + override[1];
+            boolean is_replaced = false;
+            for (int i = 0; i < result.size(); i++) {
+                if (result.get(i).split(" ", 2)[0].equals(override[0])) {
+                    result.set(i, line);
+                    is_replaced = true;
+                }
+            }
+            if (!is_replaced) {
+                result.add(line);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param overrides : {name, value} pairs
+     * @return overrides as a string
+     */
+    private static String describe(List<String[]> overrides) {
+        StringBuilder result = new StringBuilder();
+        for (String[] override : overrides) {
+            if (result.length() > 0) {
+                result.append(' ');
+            }
+            result.append(override[0]).append('=').append(override[1]);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Performs a simulation without printing anything. Rounds after all
+     * robs die are skipped at once.
+     *
+     * @param template   : board read from a file
+     * @param parameters : simulation parameters
+     * @return simulation's stats after the last round
+     */
+    private static String simulate(BoardLoader template,
+                                   Parameters parameters) {
+        Board board = new Board(template);
+        board.prepareRounds(parameters);
+        for (int i = 0; i < parameters.getHowManyRounds(); i++) {
+            if (board.isExtinct()) {
+                board.skipExtinctRounds(parameters.getHowManyRounds() - i);
+                break;
+            }
+            board.performARound(parameters);
+        }
+        return board.getStats().toString();
+    }
+
+    /**
+     * Writes a line of the results and flushes it, so that the results can
+     * be read while the sweep goes on.
+     *
+     * @param results : results file
+     * @param line    : line to write
+     */
+    private static void write(BufferedWriter results, String line) {
+        try {
+            results.write(line);
+            results.newLine();
+            results.flush();
+        } catch (IOException e) {
+            Guard.endProgramWithAMessage("Can't write the results: " +
+                    e.getMessage());
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 4) {
+            Guard.endProgramWithAMessage("Usage: Sweep board " +
+                    "base_parameters sweep_file results_file [threads]");
+        }
+        int thread_count = Runtime.getRuntime().availableProcessors();
+        if (args.length > 4) {
+            try {
+                thread_count = Integer.parseInt(args[4]);
+            } catch (NumberFormatException e) {
+                thread_count = 0;
+            }
+            if (thread_count <= 0) {
+                Guard.endProgramWithAMessage("Not valid thread count - " +
+                        args[4]);
+            }
+        }
+
+        try {
+            BoardLoader template = new BoardLoader(args[0]);
+            List<String> base = Parameters.readLines(args[1]);
+            List<List<String[]>> sweep = readSweep(args[2]);
+            // every set is checked before any simulation starts
+            List<Parameters> parameter_sets = new ArrayList<>();
+            for (List<String[]> overrides : sweep) {
+                Parameters parameters = new Parameters(override(base,
+                        overrides));
+                if (!parameters.getStartingProgram()
+                        .doesOnlyHaveValidInstructions(parameters)) {
+                    Guard.endProgramWithAMessage("There are instructions " +
+                            "in the starting program that do not exist in " +
+                            "valid_instructions (" + describe(overrides) +
+                            ")");
+                }
+                parameter_sets.add(parameters);
+            }
+
+            BufferedWriter results = new BufferedWriter(
+                    new FileWriter(args[3]));
+            ExecutorService writer = Executors.newSingleThreadExecutor();
+            ExecutorService simulators =
+                    Executors.newFixedThreadPool(thread_count);
+            List<Future<?>> runs = new ArrayList<>();
+            for (int i = 0; i < sweep.size(); i++) {
+                int number = i + 1;
+                String description = describe(sweep.get(i));
+                Parameters parameters = parameter_sets.get(i);
+                runs.add(simulators.submit(() -> {
+                    long start = System.nanoTime();
+                    String stats = simulate(template, parameters);
+                    String summary = "run " + number + " [" + description +
+                            "] seconds: " + String.format("%.3f",
+                            (System.nanoTime() - start) / 1e9) +
+                            " | " + stats;
+                    writer.execute(() -> write(results, summary));
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+            simulators.shutdown();
+            writer.shutdown();
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            results.close();
+        } catch (BoardFormatException e) {
+            Guard.endProgramWithAMessage("Not a valid board in file " +
+                    args[0] + ", " + e.getMessage());
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            Guard.endProgramWithAMessage("A simulation of the sweep failed");
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
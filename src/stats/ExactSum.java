@@ -0,0 +1,85 @@
+package stats;
+
+/**
+ * Class representing a sum of floats computed without rounding, so that
+ * values can be added and subtracted in any order, many times, and the sum
+ * stays the same as if it was computed from the values that are left.
+ * Every float is a multiple of 2^-149 smaller than 2^128, so the sum is
+ * kept as a fixed point number - 32-bit digits stored in longs (the last
+ * digit keeps the sign and whatever doesn't fit in the others).
+ *
+ * @author Adam Al-Hosam
+ */
+public class ExactSum {
+    // value of the lowest bit of the first digit is 2^MIN_EXPONENT
+    private static final int MIN_EXPONENT = -149;
+
+    private final long[] digits;
+
+    /**
+     * Constructor that creates a sum equal to 0.
+     */
+    public ExactSum() {
+        // 254 bits of exponents, 24 bits of mantissa and some space
+        // for carries
+        digits = new long[10];
+    }
+
+    /**
+     * @param x : value to add to the sum
+     */
+    public void add(float x) {
+        add(x, 1);
+    }
+
+    /**
+     * @param x : value to subtract from the sum
+     */
+    public void subtract(float x) {
+        add(x, -1);
+    }
+
+    /**
+     * Adds a float multiplied by a sign (1 or -1) to the sum.
+     */
+    private void add(float x, long sign) {
+        int bits = Float.floatToRawIntBits(x);
+        int exponent = (bits >>> 23) & 0xff;
+        long mantissa = bits & 0x7fffff;
+        if (exponent == 0) {
+            exponent = 1;   // subnormal numbers
+        } else {
+            mantissa |= 1 << 23;
+        }
+        if (bits < 0) {
+            sign = -sign;
+        }
+
+        int position = exponent - 1;
+        int digit = position >>> 5;
+        long shifted = mantissa << (position & 31);
+        digits[digit] += sign * (shifted & 0xffffffffL);
+        digits[digit + 1] += sign * (shifted >>> 32);
+
+        // carries, so that every digit but the last one is in [0, 2^32)
+        for (int i = digit; i < digits.length - 1; i++) {
+            long carry = digits[i] >> 32;
+            if (carry == 0 && i > digit) {
+                break;
+            }
+            digits[i] -= carry << 32;
+            digits[i + 1] += carry;
+        }
+    }
+
+    /**
+     * @return the sum rounded to a double
+     */
+    public double toDouble() {
+        double result = 0;
+        for (int i = digits.length - 1; i >= 0; i--) {
+            result += Math.scalb((double) digits[i], 32 * i + MIN_EXPONENT);
+        }
+        return result;
+    }
+}
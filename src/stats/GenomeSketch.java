@@ -0,0 +1,192 @@
+package stats;
+
+import inhabitants_of_the_world.Program;
+
+import java.util.Arrays;
+
+/**
+ * Class representing counts of the living Robs' programs (genomes), kept
+ * up to date as Robs are born and die, in memory that doesn't depend on
+ * the size of the population.
+ * All Robs carrying the same instructions share one Program (see
+ * ProgramPool), which counts them (see Program.countRobs), so no memory is
+ * needed for the counts. The number of distinct programs is exact too -
+ * a program is counted when its first Rob is born and stops being counted
+ * when its last one dies.
+ * The most common programs are kept in a min-heap by their counts -
+ * a program that is born replaces the least common one, if its count gets
+ * bigger, and it leaves the heap when its count gets to zero, so a program
+ * that died out is never reported.
+ *
+ * @author Adam Al-Hosam
+ */
+public class GenomeSketch {
+    // number of programs carried by living Robs
+    private int distinct_count;
+    // the min-heap of the most common programs and their exact counts
+    private final Program[] top;
+    private final int[] top_counts;
+    private int top_size;
+
+    /**
+     * Constructor that creates an empty sketch.
+     *
+     * @param top_count : number of the most common programs to keep
+     */
+    public GenomeSketch(int top_count) {
+        top = new Program[top_count];
+        top_counts = new int[top_count];
+        top_size = 0;
+    }
+
+    /**
+     * Counts a program of a Rob that was born.
+     *
+     * @param program : the Rob's program
+     */
+    public void add(Program program) {
+        int count = program.countRobs(1);
+        if (count == 1) {
+            distinct_count++;
+        }
+        int position = findInTop(program);
+        if (position >= 0) {
+            top_counts[position] = count;
+            siftDown(position);
+        } else if (top_size < top.length) {
+            top[top_size] = program;
+            top_counts[top_size] = count;
+            siftUp(top_size++);
+        } else if (top_size > 0 && count > top_counts[0]) {
+            top[0] = program;
+            top_counts[0] = count;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Stops counting a program of a Rob that died. The program has to be
+     * counted by add before.
+     *
+     * @param program : the Rob's program
+     */
+    public void remove(Program program) {
+        int count = program.countRobs(-1);
+        if (count == 0) {
+            distinct_count--;
+        }
+        int position = findInTop(program);
+        if (position < 0) {
+            return;
+        }
+        if (count > 0) {
+            top_counts[position] = count;
+            siftUp(position);
+            return;
+        }
+        // the program died out
+        top_size--;
+        top[position] = top[top_size];
+        top_counts[position] = top_counts[top_size];
+        top[top_size] = null;
+        if (position < top_size) {
+            siftUp(position);
+            siftDown(position);
+        }
+    }
+
+    /**
+     * @param program : a program
+     * @return position of the program in the heap, -1 if it's not there
+     */
+    private int findInTop(Program program) {
+        for (int i = 0; i < top_size; i++) {
+            if (top[i] == program) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves a heap's element towards the root while it's less common than
+     * its parent.
+     *
+     * @param position : element's position
+     */
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (top_counts[parent] <= top_counts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    /**
+     * Moves a heap's element away from the root while it's more common than
+     * one of its children.
+     *
+     * @param position : element's position
+     */
+    private void siftDown(int position) {
+        while (2 * position + 1 < top_size) {
+            int child = 2 * position + 1;
+            if (child + 1 < top_size &&
+                    top_counts[child + 1] < top_counts[child]) {
+                child++;
+            }
+            if (top_counts[position] <= top_counts[child]) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    /**
+     * Swaps two elements of the heap.
+     */
+    private void swap(int i, int j) {
+        Program program = top[i];
+        top[i] = top[j];
+        top[j] = program;
+        int count = top_counts[i];
+        top_counts[i] = top_counts[j];
+        top_counts[j] = count;
+    }
+
+    /**
+     * @return number of distinct programs carried by living Robs
+     */
+    public int getDistinctCount() {
+        return distinct_count;
+    }
+
+    /**
+     * Returns the number of distinct programs and the most common ones
+     * with their counts, from the most common one (equally common
+     * ones in the order of their instructions).
+     *
+     * @return : string representing the sketch
+     */
+    @Override
+    public String toString() {
+        Integer[] order = new Integer[top_size];
+        for (int i = 0; i < top_size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> top_counts[i] != top_counts[j]
+                ? top_counts[j] - top_counts[i]
+                : top[i].toString().compareTo(top[j].toString()));
+        StringBuilder result = new StringBuilder("genomes: ")
+                .append(distinct_count);
+        for (int i : order) {
+            result.append(", ").append(top[i]).append(": ")
+                    .append(top_counts[i]);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package stats;
+
+/**
+ * Reduction of the beginning of an array to its minimum, maximum and sum,
+ * which are added to a StatsTrio (see StatsTrio.updateByValues).
+ * StatsTrio reduces arrays with its own loops, unless a faster reduction
+ * can be loaded - VectorReduction uses the Vector API, so it's compiled
+ * separately (from src_vector, with --add-modules jdk.incubator.vector) and
+ * it's loaded only if it's on the class path and the JVM was started with
+ * the module.
+ *
+ * @author Adam Al-Hosam
+ */
+interface Reduction {
+    /**
+     * Adds the minimum, the maximum and the sum of values to the stats.
+     *
+     * @param values : array of values
+     * @param count  : number of the values
+     * @param stats  : stats updated by the values
+     */
+    void reduce(float[] values, int count, StatsTrio stats);
+
+    /**
+     * Adds the minimum, the maximum and the exact sum of values to
+     * the stats.
+     *
+     * @param values : array of values
+     * @param count  : number of the values
+     * @param stats  : stats updated by the values
+     */
+    void reduce(int[] values, int count, StatsTrio stats);
+
+    /**
+     * Loads VectorReduction and checks that it works.
+     *
+     * @return the reduction, null if it can't be used
+     */
+    static Reduction loadVector() {
+        try {
+            Reduction result = (Reduction) Class
+                    .forName("stats.VectorReduction")
+                    .getDeclaredConstructor().newInstance();
+            // links the Vector API, so a missing module fails here
+            result.reduce(new float[]{0}, 1, new StatsTrio("check"));
+            result.reduce(new int[]{0}, 1, new StatsTrio("check"));
+            return result;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -1,18 +1,35 @@
 package stats;
 
+import inhabitants_of_the_world.Program;
 import inhabitants_of_the_world.Rob;
 import world.Field;
 
 /**
  * Class representing statistics of a simulation.
+ * By default the stats are cleared and collected from every field after
+ * each round. In the incremental mode they are kept up to date by events
+ * (see StatsListener) instead - counts and sums are updated and values are
+ * kept in sorted multisets, so printing the stats doesn't depend on the size
+ * of the board or the population. Ages of all Robs grow by one each round,
+ * so instead of an age a Rob is stored with its age minus the round number,
+ * which doesn't change.
+ * If genomes are tracked, births and deaths are counted in a GenomeSketch
+ * in both modes.
  *
  * @author Adam Al-Hosam
  */
-public class SimulationStats {
+public class SimulationStats implements StatsListener {
     private final StatsTrio robs_program_length, robs_energy, robs_age;
     private int round_number;
     private int rob_count;
     private int fields_with_food_count;
+    // used only in the incremental mode
+    private boolean is_incremental;
+    private SortedMultiset program_lengths, energies, age_keys;
+    private long program_length_sum, age_key_sum;
+    private ExactSum energy_sum;
+    // null - genomes aren't tracked
+    private GenomeSketch genomes;
 
     /**
      * Constructor that creates up-to-date statistics from simulation with
@@ -25,15 +42,86 @@ public class SimulationStats {
         robs_program_length = new StatsTrio("prg");
         robs_energy = new StatsTrio("energ");
         robs_age = new StatsTrio("age");
+        is_incremental = false;
     }
 
     /**
-     * Updates the round number.
+     * Switches the stats to the incremental mode. Has to be called before
+     * any Rob is born.
+     *
+     * @param food_field_count : number of fields with food
+     */
+    public void startIncrementalMode(int food_field_count) {
+        is_incremental = true;
+        rob_count = 0;
+        fields_with_food_count = food_field_count;
+        program_lengths = new SortedMultiset();
+        energies = new SortedMultiset();
+        age_keys = new SortedMultiset();
+        program_length_sum = 0;
+        age_key_sum = 0;
+        energy_sum = new ExactSum();
+    }
+
+    /**
+     * @return true - if the stats are in the incremental mode, else false
+     */
+    public boolean isIncremental() {
+        return is_incremental;
+    }
+
+    /**
+     * Starts tracking the most common programs. Has to be called before
+     * any Rob is born.
+     *
+     * @param top_count : number of the most common programs to report
+     */
+    public void startTrackingGenomes(int top_count) {
+        genomes = new GenomeSketch(top_count);
+    }
+
+    /**
+     * @return true - if the stats have to be notified about births and
+     * deaths during rounds (see StatsListener), else false
+     */
+    public boolean needsEvents() {
+        return is_incremental || genomes != null;
+    }
+
+    /**
+     * @return the number of distinct programs and the most common ones (see
+     * GenomeSketch), null if genomes aren't tracked
+     */
+    public String genomesString() {
+        return genomes == null ? null : genomes.toString();
+    }
+
+    /**
+     * Updates the round number. Gets called in the beginning of a round.
      */
     public void increaseRoundNumber() {
         round_number++;
     }
 
+    /**
+     * Sets the round number (when a simulation is restored from
+     * a checkpoint or rounds without Robs are skipped). Has to be called
+     * when there are no Robs.
+     *
+     * @param round_number : number of the last finished round
+     */
+    public void setRoundNumber(int round_number) {
+        this.round_number = round_number;
+    }
+
+    /**
+     * @return number of the current round (the last finished one between
+     * rounds)
+     */
+    public int getRoundNumber() {
+        return round_number;
+    }
+
     /**
      * Clears the stats before collecting new ones.
      */
@@ -51,19 +139,182 @@ public class SimulationStats {
      * @param field : field used to update statistics
      */
     public void updateByAField(Field field) {
-        rob_count += field.getRobCount();
-
         if (field.doesHaveFood()) {
-            fields_with_food_count += 1;
+            countFoodField();
         }
 
-        for (Rob current_rob : field.robsCopyArray()) {
-            robs_program_length.updateByAValue(current_rob.getProgramLength());
-            robs_energy.updateByAValue(current_rob.getEnergy());
-            robs_age.updateByAValue(current_rob.getAge());
+        for (Rob current_rob = field.getFirstRob(); current_rob != null;
+             current_rob = current_rob.getNextOnField()) {
+            updateByARob(current_rob.getProgramLength(),
+                    current_rob.getEnergy(), current_rob.getAge());
         }
     }
 
+    /**
+     * Counts one more field with food.
+     */
+    public void countFoodField() {
+        fields_with_food_count += 1;
+    }
+
+    /**
+     * @return number of living robs
+     */
+    public int getRobCount() {
+        return rob_count;
+    }
+
+    /**
+     * Increments the number of fields with food by a given number.
+     *
+     * @param count : number of fields with food
+     */
+    public void countFoodFields(int count) {
+        fields_with_food_count += count;
+    }
+
+    /**
+     * Updates statistics by a single rob's attributes.
+     *
+     * @param program_length : length of the rob's program
+     * @param energy         : rob's energy
+     * @param age            : rob's age
+     */
+    public void updateByARob(int program_length, float energy, int age) {
+        rob_count += 1;
+        robs_program_length.updateByAValue(program_length);
+        robs_energy.updateByAValue(energy);
+        robs_age.updateByAValue(age);
+    }
+
+    /**
+     * Updates statistics by many robs at once - their attributes are given
+     * in arrays (the i-th rob's at index i), so they are reduced a whole
+     * array at a time (see StatsTrio.updateByValues).
+     *
+     * @param program_lengths : lengths of the robs' programs
+     * @param energies        : robs' energies
+     * @param ages            : robs' ages
+     * @param count           : number of the robs
+     */
+    public void updateByRobs(int[] program_lengths, float[] energies,
+                             int[] ages, int count) {
+        rob_count += count;
+        robs_program_length.updateByValues(program_lengths, count);
+        robs_energy.updateByValues(energies, count);
+        robs_age.updateByValues(ages, count);
+    }
+
+    /**
+     * Maps floats to longs so that the order stays the same.
+     *
+     * @param energy : a float
+     * @return its key in a sorted multiset
+     */
+    private static long energyKey(float energy) {
+        int bits = Float.floatToIntBits(energy);
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
+
+    /**
+     * Reverses energyKey.
+     *
+     * @param key : a key from a sorted multiset
+     * @return float with that key
+     */
+    private static float energyFromKey(long key) {
+        int bits = (int) key;
+        return Float.intBitsToFloat(bits ^ ((bits >> 31) & 0x7fffffff));
+    }
+
+    @Override
+    public void robBorn(Program program, float energy, int age) {
+        if (genomes != null) {
+            genomes.add(program);
+        }
+        if (!is_incremental) {
+            return;
+        }
+        int program_length = program.getInstructionsArrayLength();
+        rob_count++;
+        program_lengths.add(program_length);
+        program_length_sum += program_length;
+        energies.add(energyKey(energy));
+        energy_sum.add(energy);
+        age_keys.add(age - round_number);
+        age_key_sum += age - round_number;
+    }
+
+    @Override
+    public void robDied(Program program, float energy, int age) {
+        if (genomes != null) {
+            genomes.remove(program);
+        }
+        if (!is_incremental) {
+            return;
+        }
+        int program_length = program.getInstructionsArrayLength();
+        rob_count--;
+        program_lengths.remove(program_length);
+        program_length_sum -= program_length;
+        energies.remove(energyKey(energy));
+        energy_sum.subtract(energy);
+        age_keys.remove(age - round_number);
+        age_key_sum -= age - round_number;
+    }
+
+    @Override
+    public void robChanged(float old_energy, float new_energy) {
+        if (!is_incremental ||
+                energyKey(old_energy) == energyKey(new_energy)) {
+            return;
+        }
+        energies.remove(energyKey(old_energy));
+        energies.add(energyKey(new_energy));
+        energy_sum.subtract(old_energy);
+        energy_sum.add(new_energy);
+    }
+
+    @Override
+    public void foodEaten() {
+        if (is_incremental) {
+            fields_with_food_count--;
+        }
+    }
+
+    /**
+     * Gets called when food grows back on a field.
+     */
+    public void foodGrown() {
+        if (is_incremental) {
+            fields_with_food_count++;
+        }
+    }
+
+    /**
+     * Represents the stats of the incremental mode as a string, the same
+     * way as StatsTrio.
+     *
+     * @return string representing program lengths, energy and age stats
+     */
+    private String incrementalStatsString() {
+        if (rob_count == 0) {
+            return StatsTrio.format("prg", 0, 0, 0) + ", " +
+                    StatsTrio.format("energ", 0, 0, 0) + ", " +
+                    StatsTrio.format("age", 0, 0, 0);
+        }
+        return StatsTrio.format("prg", program_lengths.getMin(),
+                (float) ((double) program_length_sum / rob_count),
+                program_lengths.getMax()) + ", " +
+                StatsTrio.format("energ", energyFromKey(energies.getMin()),
+                        (float) (energy_sum.toDouble() / rob_count),
+                        energyFromKey(energies.getMax())) + ", " +
+                StatsTrio.format("age", round_number + age_keys.getMin(),
+                        (float) ((double) age_key_sum / rob_count +
+                                round_number),
+                        round_number + age_keys.getMax());
+    }
+
     /**
      * Returns this object's string representation in a specified before format.
      *
@@ -71,6 +322,12 @@ public class SimulationStats {
      */
     @Override
     public String toString() {
+        if (is_incremental) {
+            return round_number +
+                    ", rob: " + rob_count +
+                    ", food_fields: " + fields_with_food_count + ", " +
+                    incrementalStatsString();
+        }
         return round_number +
                 ", rob: " + rob_count +
                 ", food_fields: " + fields_with_food_count + ", " +
@@ -79,4 +336,3 @@ public class SimulationStats {
                 ", " + robs_age.computeAndReturnString(rob_count);
     }
 }
-
@@ -0,0 +1,217 @@
+package stats;
+
+import java.util.Arrays;
+
+/**
+ * Class representing a multiset of long values, which knows its minimum
+ * and maximum also after values are removed. It's a treap (a binary search
+ * tree balanced by random priorities) with a node per distinct value, kept
+ * in arrays, so adding and removing a value takes O(log n) time and doesn't
+ * allocate unless the arrays have to grow.
+ *
+ * @author Adam Al-Hosam
+ */
+public class SortedMultiset {
+    private static final int NONE = -1;
+
+    private long[] value;
+    private int[] count;
+    private int[] left;
+    private int[] right;
+    private int[] priority;
+    private int root;
+    // first unused node, unused nodes are linked through the left array
+    private int free;
+    private int node_count;
+    private int size;
+    // state of the generator of priorities (xorshift)
+    private int random;
+
+    /**
+     * Constructor that creates an empty multiset.
+     */
+    public SortedMultiset() {
+        value = new long[16];
+        count = new int[16];
+        left = new int[16];
+        right = new int[16];
+        priority = new int[16];
+        root = NONE;
+        free = NONE;
+        node_count = 0;
+        size = 0;
+        random = 0x2545f491;
+    }
+
+    /**
+     * @return number of values in the multiset (with repetitions)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds one occurrence of a value.
+     *
+     * @param x : value to add
+     */
+    public void add(long x) {
+        root = insert(root, x);
+        size++;
+    }
+
+    /**
+     * Removes one occurrence of a value, which has to be in the multiset.
+     *
+     * @param x : value to remove
+     */
+    public void remove(long x) {
+        root = delete(root, x);
+        size--;
+    }
+
+    /**
+     * @return the smallest value (the multiset mustn't be empty)
+     */
+    public long getMin() {
+        int node = root;
+        while (left[node] != NONE) {
+            node = left[node];
+        }
+        return value[node];
+    }
+
+    /**
+     * @return the biggest value (the multiset mustn't be empty)
+     */
+    public long getMax() {
+        int node = root;
+        while (right[node] != NONE) {
+            node = right[node];
+        }
+        return value[node];
+    }
+
+    /**
+     * Adds a value to a subtree.
+     *
+     * @param node : subtree's root
+     * @param x    : value to add
+     * @return new root of the subtree
+     */
+    private int insert(int node, long x) {
+        if (node == NONE) {
+            return newNode(x);
+        }
+        if (x == value[node]) {
+            count[node]++;
+        } else if (x < value[node]) {
+            // the arrays can grow, so they are read after the call
+            int child = insert(left[node], x);
+            left[node] = child;
+            if (priority[left[node]] > priority[node]) {
+                node = rotateRight(node);
+            }
+        } else {
+            int child = insert(right[node], x);
+            right[node] = child;
+            if (priority[right[node]] > priority[node]) {
+                node = rotateLeft(node);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Removes a value from a subtree. A node that loses its last occurrence
+     * is rotated down until it becomes a leaf.
+     *
+     * @param node : subtree's root
+     * @param x    : value to remove
+     * @return new root of the subtree
+     */
+    private int delete(int node, long x) {
+        if (x < value[node]) {
+            left[node] = delete(left[node], x);
+            return node;
+        }
+        if (x > value[node]) {
+            right[node] = delete(right[node], x);
+            return node;
+        }
+        if (count[node] > 1) {
+            count[node]--;
+            return node;
+        }
+        if (left[node] == NONE || right[node] == NONE) {
+            int child = left[node] == NONE ? right[node] : left[node];
+            left[node] = free;
+            free = node;
+            return child;
+        }
+        if (priority[left[node]] > priority[right[node]]) {
+            int result = rotateRight(node);
+            right[result] = delete(node, x);
+            return result;
+        }
+        int result = rotateLeft(node);
+        left[result] = delete(node, x);
+        return result;
+    }
+
+    /**
+     * @param node : a node with a left child
+     * @return the left child, which becomes the parent of the node
+     */
+    private int rotateRight(int node) {
+        int result = left[node];
+        left[node] = right[result];
+        right[result] = node;
+        return result;
+    }
+
+    /**
+     * @param node : a node with a right child
+     * @return the right child, which becomes the parent of the node
+     */
+    private int rotateLeft(int node) {
+        int result = right[node];
+        right[node] = left[result];
+        left[result] = node;
+        return result;
+    }
+
+    /**
+     * Takes an unused node (or a new one, if there are none) and sets it
+     * up as a leaf with one occurrence of a value.
+     *
+     * @param x : node's value
+     * @return the node
+     */
+    private int newNode(long x) {
+        int node;
+        if (free != NONE) {
+            node = free;
+            free = left[node];
+        } else {
+            if (node_count == value.length) {
+                int capacity = 2 * value.length;
+                value = Arrays.copyOf(value, capacity);
+                count = Arrays.copyOf(count, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                priority = Arrays.copyOf(priority, capacity);
+            }
+            node = node_count++;
+        }
+        random ^= random << 13;
+        random ^= random >>> 17;
+        random ^= random << 5;
+        value[node] = x;
+        count[node] = 1;
+        left[node] = NONE;
+        right[node] = NONE;
+        priority[node] = random;
+        return node;
+    }
+}
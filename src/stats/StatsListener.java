@@ -0,0 +1,45 @@
+package stats;
+
+import inhabitants_of_the_world.Program;
+
+/**
+ * Interface of objects notified about changes in the simulation that
+ * matter for its statistics. Ages are given as they will be at the end of
+ * the current round (a Rob that has already acted in the round is one round
+ * older than at its beginning, a Rob born in it is 0 rounds old).
+ *
+ * @author Adam Al-Hosam
+ */
+public interface StatsListener {
+    /**
+     * Called when a new Rob appears in the simulation.
+     *
+     * @param program : rob's program
+     * @param energy  : rob's energy
+     * @param age     : rob's age
+     */
+    void robBorn(Program program, float energy, int age);
+
+    /**
+     * Called when a Rob dies.
+     *
+     * @param program : rob's program
+     * @param energy  : rob's energy reported last time (when it was born
+     *                or changed)
+     * @param age     : rob's age
+     */
+    void robDied(Program program, float energy, int age);
+
+    /**
+     * Called when a Rob's energy changes (after its turn).
+     *
+     * @param old_energy : rob's energy reported last time
+     * @param new_energy : rob's current energy
+     */
+    void robChanged(float old_energy, float new_energy);
+
+    /**
+     * Called when a Rob eats food from a field.
+     */
+    void foodEaten();
+}
@@ -0,0 +1,101 @@
+package stats;
+
+import inhabitants_of_the_world.Program;
+
+import java.util.Arrays;
+
+/**
+ * Class representing a list of events noted by one thread, that will be
+ * passed on to the stats later (see replayTo). Events are kept in arrays
+ * reused from round to round.
+ *
+ * @author Adam Al-Hosam
+ */
+public class StatsLog implements StatsListener {
+    private static final int BORN = 0;
+    private static final int DIED = 1;
+    private static final int CHANGED = 2;
+    private static final int FOOD_EATEN = 3;
+
+    private int[] type;
+    private Program[] program;
+    private float[] energy;
+    private float[] new_energy;
+    private int[] age;
+    private int event_count;
+
+    /**
+     * Constructor that creates an empty log.
+     */
+    public StatsLog() {
+        type = new int[16];
+        program = new Program[16];
+        energy = new float[16];
+        new_energy = new float[16];
+        age = new int[16];
+        event_count = 0;
+    }
+
+    /**
+     * Notes an event and returns its number.
+     */
+    private int note(int event_type) {
+        if (event_count == type.length) {
+            int capacity = 2 * type.length;
+            type = Arrays.copyOf(type, capacity);
+            program = Arrays.copyOf(program, capacity);
+            energy = Arrays.copyOf(energy, capacity);
+            new_energy = Arrays.copyOf(new_energy, capacity);
+            age = Arrays.copyOf(age, capacity);
+        }
+        type[event_count] = event_type;
+        return event_count++;
+    }
+
+    @Override
+    public void robBorn(Program program, float energy, int age) {
+        int i = note(BORN);
+        this.program[i] = program;
+        this.energy[i] = energy;
+        this.age[i] = age;
+    }
+
+    @Override
+    public void robDied(Program program, float energy, int age) {
+        int i = note(DIED);
+        this.program[i] = program;
+        this.energy[i] = energy;
+        this.age[i] = age;
+    }
+
+    @Override
+    public void robChanged(float old_energy, float new_energy) {
+        int i = note(CHANGED);
+        this.energy[i] = old_energy;
+        this.new_energy[i] = new_energy;
+    }
+
+    @Override
+    public void foodEaten() {
+        note(FOOD_EATEN);
+    }
+
+    /**
+     * Passes every noted event (in the order they were noted) to a given
+     * listener and clears the log (without keeping the programs).
+     *
+     * @param listener : listener to notify
+     */
+    public void replayTo(StatsListener listener) {
+        for (int i = 0; i < event_count; i++) {
+            switch (type[i]) {
+                case BORN -> listener.robBorn(program[i], energy[i], age[i]);
+                case DIED -> listener.robDied(program[i], energy[i], age[i]);
+                case CHANGED -> listener.robChanged(energy[i], new_energy[i]);
+                case FOOD_EATEN -> listener.foodEaten();
+            }
+            program[i] = null;
+        }
+        event_count = 0;
+    }
+}
@@ -2,15 +2,20 @@ package stats;
 
 /**
  * Class representing information (minimum, maximum and sum) about
- * some data.
+ * some data. The sum is kept in a double, so that it stays precise for big
+ * populations.
  *
  * @author Adam Al-Hosam
  */
 public class StatsTrio {
+    // reduction of arrays with the Vector API, null if it can't be used
+    // (the arrays are reduced by StatsTrio's loops then)
+    private static final Reduction VECTOR = Reduction.loadVector();
+
     private final String name;
     private float min;
     private float max;
-    private float sum;
+    private double sum;
 
     /**
      * Constructor that creates a new object with min set as MAX_VALUE, because
@@ -43,7 +48,7 @@ public class StatsTrio {
     /**
      * @return sum of the data
      */
-    public float getSum() {
+    public double getSum() {
         return sum;
     }
 
@@ -57,7 +62,7 @@ public class StatsTrio {
         if (count == 0) {
             return 0;
         }
-        return sum / count;
+        return (float) (sum / count);
     }
 
     /**
@@ -85,6 +90,92 @@ public class StatsTrio {
         sum += value;
     }
 
+    /**
+     * Updates the stats by the minimum, the maximum and the sum of some
+     * values (see Reduction).
+     *
+     * @param values_min : minimum of the values
+     * @param values_max : maximum of the values
+     * @param values_sum : sum of the values
+     */
+    void update(float values_min, float values_max, double values_sum) {
+        if (values_min < min) {
+            min = values_min;
+        }
+        if (values_max > max) {
+            max = values_max;
+        }
+        sum += values_sum;
+    }
+
+    /**
+     * Updates the stats by values from the beginning of an array at once,
+     * with the Vector API if it can be used (see Reduction). Otherwise
+     * the minimum and the maximum are found in one pass and the sum in
+     * another one, in four independent sums that don't wait for each other.
+     *
+     * @param values : array of values
+     * @param count  : number of the values
+     */
+    public void updateByValues(float[] values, int count) {
+        if (VECTOR != null) {
+            VECTOR.reduce(values, count, this);
+            return;
+        }
+        float new_min = min;
+        float new_max = max;
+        for (int i = 0; i < count; i++) {
+            float value = values[i];
+            new_min = value < new_min ? value : new_min;
+            new_max = value > new_max ? value : new_max;
+        }
+        min = new_min;
+        max = new_max;
+
+        double sum0 = 0;
+        double sum1 = 0;
+        double sum2 = 0;
+        double sum3 = 0;
+        int i = 0;
+        for (; i + 3 < count; i += 4) {
+            sum0 += values[i];
+            sum1 += values[i + 1];
+            sum2 += values[i + 2];
+            sum3 += values[i + 3];
+        }
+        for (; i < count; i++) {
+            sum0 += values[i];
+        }
+        sum += (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    /**
+     * Updates the stats by values from the beginning of an array at once,
+     * with the Vector API if it can be used (see Reduction), otherwise in
+     * one pass (the sum of ints is exact either way).
+     *
+     * @param values : array of values
+     * @param count  : number of the values
+     */
+    public void updateByValues(int[] values, int count) {
+        if (VECTOR != null) {
+            VECTOR.reduce(values, count, this);
+            return;
+        }
+        int new_min = Integer.MAX_VALUE;
+        int new_max = Integer.MIN_VALUE;
+        long new_sum = 0;
+        for (int i = 0; i < count; i++) {
+            int value = values[i];
+            new_min = value < new_min ? value : new_min;
+            new_max = value > new_max ? value : new_max;
+            new_sum += value;
+        }
+        min = Math.min(min, new_min);
+        max = Math.max(max, new_max);
+        sum += new_sum;
+    }
+
     /**
      * Represents an object as a string.
      *
@@ -96,8 +187,22 @@ public class StatsTrio {
             min = 0;
             max = 0;
         }
+        return format(name, min, mean(count), max);
+    }
+
+    /**
+     * Represents stats of some data as a string.
+     *
+     * @param name : name of the data
+     * @param min  : minimum value from the data
+     * @param mean : mean of the data
+     * @param max  : maximum value from the data
+     * @return string representing the stats
+     */
+    public static String format(String name, float min, float mean,
+                                float max) {
         return name + ": " + String.format("%.2f", min) + "/" +
-                String.format("%.2f", mean(count)) + "/" +
+                String.format("%.2f", mean) + "/" +
                 String.format("%.2f", max);
     }
 }
@@ -0,0 +1,137 @@
+package world;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Class representing the set of fields with robs on them, sorted by their
+ * indices (row after row), so that a round visits only them, in the same
+ * order as if it visited every field of the board.
+ * Fields that become occupied are added as it happens (they can be added
+ * more than once) and between rounds the set is updated - the added fields
+ * are merged with the old ones and the fields without robs are dropped.
+ * So the cost of a round depends on the number of robs, not on the size
+ * of the board.
+ *
+ * @author Adam Al-Hosam
+ */
+class ActiveFields {
+    // the set, sorted, and fields added since the last update after it
+    private int[] fields = new int[16];
+    private int size;
+    private int added_count;
+    // the set and the added fields are merged into it, then they swap
+    private int[] merged = new int[16];
+
+    /**
+     * Adds a field that has just become occupied.
+     *
+     * @param field : field's index
+     */
+    void add(int field) {
+        if (size + added_count == fields.length) {
+            fields = Arrays.copyOf(fields, 2 * fields.length);
+        }
+        fields[size + added_count++] = field;
+    }
+
+    /**
+     * Adds fields that have become occupied.
+     *
+     * @param added : indices of the fields
+     * @param count : number of the fields
+     */
+    void add(int[] added, int count) {
+        for (int i = 0; i < count; i++) {
+            add(added[i]);
+        }
+    }
+
+    /**
+     * Updates the set between rounds. Every field that was in it or was
+     * added is passed to update (once, in the order of indices) and stays
+     * in the set only if it's occupied.
+     *
+     * @param is_occupied : tells if there are robs on a field
+     * @param update      : prepares a field before the next round
+     */
+    void update(IntPredicate is_occupied, IntConsumer update) {
+        int length = size + added_count;
+        if (added_count > 0) {
+            merge();
+        }
+        int kept = 0;
+        int previous = -1;
+        for (int i = 0; i < length; i++) {
+            int field = fields[i];
+            if (field == previous) {
+                continue;
+            }
+            previous = field;
+            update.accept(field);
+            if (is_occupied.test(field)) {
+                fields[kept++] = field;
+            }
+        }
+        size = kept;
+        added_count = 0;
+    }
+
+    /**
+     * Sorts the added fields and merges them with the set (which is sorted
+     * already), so the fields are sorted without sorting the whole set.
+     */
+    private void merge() {
+        int length = size + added_count;
+        Arrays.sort(fields, size, length);
+        if (merged.length < fields.length) {
+            merged = new int[fields.length];
+        }
+        int i = 0;
+        int j = size;
+        int k = 0;
+        while (i < size && j < length) {
+            merged[k++] = fields[i] <= fields[j] ? fields[i++] : fields[j++];
+        }
+        while (i < size) {
+            merged[k++] = fields[i++];
+        }
+        while (j < length) {
+            merged[k++] = fields[j++];
+        }
+        int[] old_fields = fields;
+        fields = merged;
+        merged = old_fields;
+    }
+
+    /**
+     * @return number of fields in the set
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param i : position in the set
+     * @return index of the i-th field of the set
+     */
+    int get(int i) {
+        return fields[i];
+    }
+
+    /**
+     * Finds the first field of the set with an index not smaller than
+     * a given one.
+     *
+     * @param field : field's index
+     * @return the field's index, -1 if there is none
+     */
+    int next(int field) {
+        int position = Arrays.binarySearch(fields, 0, size, field);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return position < size ? fields[position] : -1;
+    }
+}
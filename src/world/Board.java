@@ -1,13 +1,25 @@
 package world;
 
+import checkpoint.CheckpointReader;
+import checkpoint.CheckpointWriter;
+import error_handling.BoardFormatException;
 import error_handling.Guard;
+import inhabitants_of_the_world.Migrant;
+import inhabitants_of_the_world.Program;
+import inhabitants_of_the_world.ProgramPool;
 import inhabitants_of_the_world.Rob;
+import inhabitants_of_the_world.RobPool;
+import output.OutputPipeline;
+import profiling.Profiler;
+import randomizing.RandomStream;
 import stats.SimulationStats;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Random;
-import java.util.Scanner;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 
 /**
  * Class that represents a Board/Universe, in which the simulation takes place.
@@ -16,135 +28,346 @@ import java.util.Scanner;
  */
 public class Board {
     private final SimulationStats stats;
-    private final Field[][] fields;
-    private int row_count;
-    private int column_count;
+    // programs of all living robs, robs with the same program share it
+    private final ProgramPool programs;
+    // dead robs, reused when robs are born (when robs are Rob objects)
+    private final RobPool robs;
+    // performs generated programs of Rob objects
+    private final Rob.Executor rob_executor;
+    private final int row_count;
+    private final int column_count;
+    // the board as read from the file, until the fields are created
+    private BoardLoader loader;
+    // fields stored row after row, see Torus (null if the board is chunked)
+    private Field[] fields;
+    // fields with robs on round start (when robs are Rob objects)
+    private final ActiveFields active_fields = new ActiveFields();
+    // passed to active_fields and regrowth - created once, so that rounds
+    // don't create objects
+    private final IntPredicate is_occupied =
+            index -> fields[index].getRobCount() > 0;
+    private final IntConsumer remember_rob_count =
+            index -> fields[index].rememberRobCount();
+    private final IntConsumer grow_food = this::growFood;
+    private Torus torus;
+    // neighbours with food of every field (when robs are Rob objects)
+    private FoodAround food_around;
+    // outcomes of programs of Rob objects, null if they aren't memoized
+    private OutcomeCache outcomes;
+    // state of the fields used by the population engine
+    private Cells cells;
+    // not null if the robs are stored in arrays instead of Rob objects
+    private PopulationEngine population_engine;
+    // everything the simulation prints goes through it
+    private OutputPipeline output;
+    // not null if checkpoints are written
+    private CheckpointWriter checkpoint;
+    // grows eaten food back
+    private FoodRegrowth regrowth;
+    // measures the rounds if profiling is on
+    private final Profiler profiler = new Profiler();
 
     /**
-     * Constructor that reads a board from file with a specified path.
-     * Determines if each row is of the  same length.
-     * Fills it's fields attribute with an appropriate subclass of Field object.
+     * Constructor that reads a board from file with a specified path
+     * (see BoardLoader). The fields are created when the simulation starts,
+     * when it's known how they are stored.
      *
      * @param path_to_file : a valid file path
+     * @throws IOException          : if the file can't be read
+     * @throws BoardFormatException : if the file isn't a valid board
      */
-    public Board(String path_to_file) throws FileNotFoundException {
-        stats = new SimulationStats();
-        computeColumnsCount(path_to_file);
-        computeRowCount(path_to_file);
-        fields = new Field[row_count][column_count];
-
-        if (column_count <= 0 || row_count <= 0) {
-            Guard.endProgramWithAMessage("Not valid board dimensions");
-        }
-
-        char[] current_row;
-
-        // wczytywanie row po wierszu
-        Scanner sc = new Scanner(new File(path_to_file)).useDelimiter("\n");
-        for (int row = 0; row < row_count; row++) {
-            current_row = sc.next().toCharArray();
-
-            if (current_row.length != column_count) {
-                Guard.endProgramWithAMessage("Row lengths vary");
-            }
-
-            for (int column = 0; column < column_count; column++) {
-                if (!" x".contains(current_row[column] + "")) {
-                    Guard.endProgramWithAMessage("Forbidden " +
-                            "char in board's representation in file: " +
-                            path_to_file);
-                }
-
-                fields[row][column] = current_row[column] == 'x'
-                        ? new FieldWithFood(row, column)
-                        : new EmptyField(row, column);
-            }
-        }
-        sc.close();
+    public Board(String path_to_file)
+            throws IOException, BoardFormatException {
+        this(new BoardLoader(path_to_file));
     }
 
     /**
-     * Opens the file, read first line's char count and sets an appropriate
-     * attribute (column_count)
+     * Constructor that creates a board from a board already read from
+     * a file. The loader isn't changed, so many boards can be created from
+     * it (see BoardLoader).
      *
-     * @param path_to_file : path to a file with the board's representation
-     * @throws FileNotFoundException : if the path is not valid
+     * @param template : board read from a file
      */
-    private void computeColumnsCount(String path_to_file) throws FileNotFoundException {
-        Scanner sc = new Scanner(new File(path_to_file)).useDelimiter("\n");
-        column_count = sc.next().length();
-        sc.close();
+    public Board(BoardLoader template) {
+        stats = new SimulationStats();
+        programs = new ProgramPool();
+        robs = new RobPool();
+        rob_executor = new Rob.Executor(this);
+        loader = template;
+        row_count = loader.getRowCount();
+        column_count = loader.getColumnCount();
     }
 
     /**
-     * Opens a file, reads the number of rows and sets  row_count.
-     *
-     * @param path_to_file : path to a file with the board's representation
-     * @throws FileNotFoundException : if the path is not valid
+     * Fills fields attribute with an appropriate subclass of Field object
+     * for every field of the loaded board.
      */
-    private void computeRowCount(String path_to_file) throws FileNotFoundException {
-        Scanner sc = new Scanner(new File(path_to_file)).useDelimiter("\n");
-        int counter;
-        for (counter = 0; sc.hasNext(); counter++) {
-            sc.next();
+    private void createFields() {
+        torus = new Torus(row_count, column_count);
+        fields = new Field[torus.getFieldCount()];
+        for (int row = 0; row < row_count; row++) {
+            for (int column = 0; column < column_count; column++) {
+                int index = torus.getIndex(row, column);
+                fields[index] = loader.hasFood(index)
+                        ? new FieldWithFood(row, column, index)
+                        : new EmptyField(row, column, index);
+            }
         }
-        sc.close();
-        row_count = counter;
     }
 
     /**
      * Randomly samples as many pairs of row and column, as many robs there
      * should exist in the beginning of the simulations. For each such pair
-     * it creates a new Rob with given parameters.
+     * it creates a new Rob with given parameters and its own random stream
+     * split from the master one.
      *
      * @param parameters : simulation parameters
+     * @param random     : master random stream of the simulation
      */
-    private void createAndPlaceRobs(Parameters parameters) {
-        Random random = new Random();
+    private void createAndPlaceRobs(Parameters parameters,
+                                    RandomStream random) {
+        if (population_engine != null) {
+            population_engine.createAndPlaceRobs(parameters, random);
+            return;
+        }
+
         int row, column;
         for (int i = 0; i < parameters.getHowManyRobsOnStart(); i++) {
             row = random.nextInt(row_count);
             column = random.nextInt(column_count);
 
-            fields[row][column].placeNextRob(new Rob(parameters,
-                    fields[row][column]));
+            Field field = getField(row, column);
+            Rob rob = new Rob(parameters, field, random.split(), programs);
+            field.placeNextRob(rob);
+            robPlaced(field);
+            stats.robBorn(rob.getProgram(), rob.getEnergy(), rob.getAge());
         }
     }
 
     /**
      * Goes through every field and collects information about it.
-     * Updates stats attribute.
-     * Updates the field before the next round.
+     * Updates stats attribute (unless the stats are incremental - they are
+     * already up to date then).
+     * Updates the fields before the next round - the food that is ready
+     * grows back first (only on the fields scheduled for this round, see
+     * FoodRegrowth), then the fields with robs (only the active ones, see
+     * ActiveFields) remember them.
      *
      * @param parameters : simulation parameters (needed to update field with
      *                   food)
      */
     private void collectStatsAndUpdateFields(Parameters parameters) {
-        stats.clearTheStats();
+        regrowth.growFood(stats.getRoundNumber(), grow_food);
+        if (!stats.isIncremental()) {
+            stats.clearTheStats();
+        }
+        if (population_engine != null) {
+            population_engine.collectStatsAndUpdateFields(stats);
+            return;
+        }
 
-        Field current_field;
-        for (int row = 0; row < row_count; row++) {
-            for (int column = 0; column < column_count; column++) {
-                current_field = getField(row, column);
-                current_field.updateFieldState(parameters);
-                stats.updateByAField(current_field);
+        active_fields.update(is_occupied, remember_rob_count);
+        if (stats.isIncremental()) {
+            return;
+        }
+        for (Field current_field : fields) {
+            stats.updateByAField(current_field);
+        }
+    }
+
+    /**
+     * Grows the food back on a field.
+     *
+     * @param index : field's index
+     */
+    private void growFood(int index) {
+        if (cells != null) {
+            cells.setFood(index, true);
+        } else {
+            ((FieldWithFood) fields[index]).growFood();
+            food_around.setFood(index, true);
+        }
+        stats.foodGrown();
+    }
+
+    /**
+     * Gets called after a rob eats the food of a field in the current round,
+     * so that it grows back.
+     *
+     * @param index : field's index
+     */
+    public void foodEaten(int index) {
+        food_around.setFood(index, false);
+        stats.foodEaten();
+        regrowth.foodEaten(index, stats.getRoundNumber());
+    }
+
+    /**
+     * Schedules growing back the food eaten by the population engine in
+     * the last round.
+     *
+     * @param fields : indices of fields whose food was eaten
+     * @param count  : number of the fields
+     */
+    void foodEaten(int[] fields, int count) {
+        for (int i = 0; i < count; i++) {
+            regrowth.foodEaten(fields[i], stats.getRoundNumber());
+        }
+    }
+
+    /**
+     * @return true - if there are no robs on the board (between rounds),
+     * else false
+     */
+    public boolean isExtinct() {
+        return population_engine != null
+                ? population_engine.getRobCount() == 0
+                : active_fields.size() == 0;
+    }
+
+    /**
+     * Skips a given number of rounds of a board without robs, leaving it and
+     * the stats as if the rounds were performed with performARound - only
+     * the food grows back, so the fields whose food is ready after any of
+     * the rounds are found at once (see FoodRegrowth.growFoodUntil).
+     *
+     * @param round_count : number of rounds to skip
+     */
+    public void skipExtinctRounds(int round_count) {
+        skipExtinctRounds(round_count, cells != null
+                ? cells.countFood()
+                : countFoodFields());
+    }
+
+    /**
+     * Skips a given number of rounds of a board without robs (see
+     * skipExtinctRounds), knowing how many fields have food, so that
+     * the board doesn't have to be visited.
+     *
+     * @param round_count : number of rounds to skip
+     * @param food_count  : number of fields with food before the rounds
+     * @return number of fields with food after the rounds
+     */
+    private int skipExtinctRounds(int round_count, int food_count) {
+        int round = stats.getRoundNumber() + round_count;
+        food_count += round_count == 1
+                ? regrowth.growFood(round, grow_food)
+                : regrowth.growFoodUntil(round, grow_food);
+        stats.setRoundNumber(round);
+        if (!stats.isIncremental()) {
+            stats.clearTheStats();
+            stats.countFoodFields(food_count);
+        }
+        return food_count;
+    }
+
+    /**
+     * Performs the rest of the simulation's rounds on a board without robs
+     * (without migration no rob can appear on it again), printing them like
+     * performTheSimulation does, but without performing the rounds - only
+     * the food grows back. If parameters say so, once all food has grown
+     * back the remaining rounds, which can't change anything, are
+     * replaced by a single record (and the stats after the last one).
+     *
+     * @param parameters  : simulation parameters
+     * @param first_round : number of the first round to perform, counting
+     *                    from 0
+     * @param helper      : helper of printing the simulation's state (see
+     *                    performTheSimulation)
+     * @return the helper after the last round
+     */
+    private int performExtinctRounds(Parameters parameters, int first_round,
+                                     int helper) {
+        boolean is_compressed =
+                parameters.getExtinctOutput().equals("compressed");
+        int food_count = cells != null
+                ? cells.countFood()
+                : countFoodFields();
+        int round = first_round;
+        while (round < parameters.getHowManyRounds() &&
+                !(is_compressed && regrowth.isEmpty())) {
+            food_count = skipExtinctRounds(1, food_count);
+            round++;
+            printBasicInfo();
+            if (helper == parameters.getHowOftenToPrint()) {
+                printOutSimulationState();
+                helper = 0;
             }
+            if (checkpoint != null &&
+                    round % parameters.getCheckpointEvery() == 0) {
+                writeCheckpoint(round);
+            }
+            helper++;
+        }
+        if (round == parameters.getHowManyRounds()) {
+            return helper;
         }
+
+        // the skipped rounds' checkpoints would be the same but for
+        // the round's number, so only the last one is written
+        int every = parameters.getCheckpointEvery();
+        int last_checkpoint_round =
+                parameters.getHowManyRounds() / every * every;
+        if (checkpoint != null && last_checkpoint_round > round) {
+            writeCheckpoint(last_checkpoint_round);
+        }
+        output.printLine("unchanged for " +
+                (parameters.getHowManyRounds() - round) + " rounds");
+        skipExtinctRounds(parameters.getHowManyRounds() - round, food_count);
+        printBasicInfo();
+        // the last state is always printed
+        return 0;
     }
 
     /**
-     * Performs a round's actions on every field.
-     * Updates round number in stats object.
+     * @return number of fields with food on the board
+     */
+    private int countFoodFields() {
+        int result = 0;
+        for (Field field : fields) {
+            if (field.doesHaveFood()) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Performs a round's actions on every field with robs on round start,
+     * in the order of the fields (see ActiveFields).
+     * Updates round number in stats object first, so that the stats know
+     * which round the events come from.
      *
      * @param parameters : simulation parameters
      */
     private void wykonajTure(Parameters parameters) {
-        for (int row = 0; row < row_count; row++) {
-            for (int column = 0; column < column_count; column++) {
-                getField(row, column).performARound(parameters, this);
+        stats.increaseRoundNumber();
+        if (population_engine != null) {
+            population_engine.wykonajTure(parameters);
+            population_engine.takeEatenFood(this);
+            if (Profiler.ENABLED) {
+                population_engine.takeProfile(profiler);
+            }
+        } else {
+            for (int i = 0; i < active_fields.size(); i++) {
+                fields[active_fields.get(i)].performARound(parameters, this);
+            }
+            if (Profiler.ENABLED && outcomes != null) {
+                outcomes.takeCounts(profiler);
             }
         }
-        stats.increaseRoundNumber();
+    }
+
+    /**
+     * Gets called after a rob is placed on a field, so that the field
+     * becomes active if it had no robs before.
+     *
+     * @param field : the field
+     */
+    public void robPlaced(Field field) {
+        if (field.getRobCount() == 1) {
+            active_fields.add(field.getIndex());
+        }
     }
 
     /**
@@ -152,16 +375,18 @@ public class Board {
      * states of all robs in the simulation.
      */
     private void printOutSimulationState() {
-        System.out.println("\nSIMULATION STATE");
-        System.out.println(
+        output.printLine("\nSIMULATION STATE");
+        output.printLine(
                 "-----------------------------------------------------------" +
                         "---------------------------");
-        for (int row = 0; row < row_count; row++) {
-            for (int column = 0; column < column_count; column++) {
-                getField(row, column).printRobsStates();
+        if (population_engine != null) {
+            population_engine.printRobsStates(output);
+        } else {
+            for (int i = 0; i < active_fields.size(); i++) {
+                fields[active_fields.get(i)].printRobsStates(output);
             }
         }
-        System.out.println(
+        output.printLine(
                 "-----------------------------------------------------------" +
                         "---------------------------\n");
     }
@@ -170,39 +395,414 @@ public class Board {
      * Method that prints out basic information after each round.
      */
     private void printBasicInfo() {
-        System.out.println(stats);
+        output.printLine(stats.toString());
+        String genomes = stats.genomesString();
+        if (genomes != null) {
+            output.printLine(genomes);
+        }
+    }
+
+    /**
+     * Writes a checkpoint after a given round: food state of every field
+     * and then robs of every field.
+     *
+     * @param round_number : number of the last finished round
+     */
+    private void writeCheckpoint(int round_number) {
+        checkpoint.begin(row_count, column_count, round_number);
+        Map<Integer, Integer> food_timers =
+                regrowth.getFoodTimers(round_number);
+        for (int row = 0; row < row_count; row++) {
+            for (int column = 0; column < column_count; column++) {
+                int index = fields == null
+                        ? cells.getIndex(row, column)
+                        : getField(row, column).getIndex();
+                boolean is_food_field = fields == null
+                        ? cells.isFoodField(index)
+                        : fields[index] instanceof FieldWithFood;
+                if (!is_food_field) {
+                    checkpoint.putEmptyField();
+                    continue;
+                }
+                checkpoint.putFoodField(cells != null
+                                ? cells.hasFood(index)
+                                : fields[index].doesHaveFood(),
+                        food_timers.getOrDefault(index, 0));
+            }
+        }
+        for (int row = 0; row < row_count; row++) {
+            for (int column = 0; column < column_count; column++) {
+                if (population_engine != null) {
+                    population_engine.writeRobs(cells.getIndex(row, column),
+                            checkpoint);
+                } else {
+                    getField(row, column).writeRobs(checkpoint);
+                }
+            }
+        }
+        checkpoint.finish();
+    }
+
+    /**
+     * Reads the state of fields from a checkpoint, which has to be written
+     * for the same board.
+     *
+     * @param reader : checkpoint being read
+     */
+    private void restoreFields(CheckpointReader reader) {
+        if (reader.getRowCount() != row_count ||
+                reader.getColumnCount() != column_count) {
+            Guard.endProgramWithAMessage("The checkpoint was written for " +
+                    "a board of a different size");
+        }
+        for (int row = 0; row < row_count; row++) {
+            for (int column = 0; column < column_count; column++) {
+                reader.nextField();
+                Field field = fields == null ? null : getField(row, column);
+                int index = fields == null
+                        ? cells.getIndex(row, column)
+                        : field.getIndex();
+                boolean is_food_field = fields == null
+                        ? cells.isFoodField(index)
+                        : field instanceof FieldWithFood;
+                if (reader.hasFood() != is_food_field) {
+                    Guard.endProgramWithAMessage("The checkpoint was " +
+                            "written for a different board");
+                }
+                if (field instanceof FieldWithFood food_field) {
+                    food_field.restoreFood(reader.isFoodReady());
+                } else if (field == null && is_food_field &&
+                        !reader.isFoodReady()) {
+                    cells.setFood(index, false);
+                }
+                if (is_food_field && !reader.isFoodReady()) {
+                    regrowth.foodEaten(index, reader.getRoundNumber() -
+                            reader.getFoodTimer());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads robs from a checkpoint (after the fields) and places them on
+     * the board, so that the simulation can continue as if it had never
+     * stopped.
+     *
+     * @param reader : checkpoint being read
+     */
+    private void restoreRobs(CheckpointReader reader) {
+        stats.setRoundNumber(reader.getRoundNumber());
+        for (int row = 0; row < row_count; row++) {
+            for (int column = 0; column < column_count; column++) {
+                int count = reader.nextRobCount();
+                for (int i = 0; i < count; i++) {
+                    reader.nextRob();
+                    placeRob(reader.getProgram(), reader.getDirection(),
+                            reader.getEnergy(), reader.getAge(),
+                            new RandomStream(reader.getRandomSeed(),
+                                    reader.getRandomGamma()), row, column);
+                }
+            }
+        }
+        rememberRobCounts();
+        reader.finish();
+    }
+
+    /**
+     * Places a Rob with given attributes (read from a checkpoint or coming
+     * from another board) in the beginning of a field's rob list.
+     *
+     * @param program   : Rob's program
+     * @param direction : Rob's direction
+     * @param energy    : Rob's energy
+     * @param age       : Rob's age
+     * @param random    : Rob's random stream
+     * @param row       : field's row
+     * @param column    : field's column
+     */
+    private void placeRob(Program program, int direction, float energy,
+                          int age, RandomStream random, int row,
+                          int column) {
+        if (population_engine != null) {
+            population_engine.restoreRob(cells.getIndex(row, column),
+                    program, direction, energy, age, random);
+            return;
+        }
+        Field field = getField(row, column);
+        Rob rob = new Rob(program, direction, energy, age, field, random,
+                programs);
+        field.placeNextRob(rob);
+        robPlaced(field);
+        stats.robBorn(rob.getProgram(), rob.getEnergy(), rob.getAge());
+    }
+
+    /**
+     * Remembers how many robs are on every field, so that only they act
+     * in the next round.
+     */
+    private void rememberRobCounts() {
+        if (population_engine != null) {
+            population_engine.rememberRobCounts();
+        } else {
+            active_fields.update(is_occupied, remember_rob_count);
+        }
+    }
+
+    /**
+     * Removes every rob with a given probability (after a round), so that
+     * it can move to another board.
+     *
+     * @param fraction : probability that a rob leaves
+     * @param random   : random stream deciding which robs leave
+     * @return robs that left, as migrants
+     */
+    public List<Migrant> takeEmigrants(float fraction, RandomStream random) {
+        List<Migrant> result = new ArrayList<>();
+        if (population_engine != null) {
+            population_engine.takeEmigrants(fraction, random, result);
+        } else {
+            for (int i = 0; i < active_fields.size(); i++) {
+                Field field = fields[active_fields.get(i)];
+                for (Rob rob : field.robsCopyArray()) {
+                    if (random.sampleBooleanWithProbability(fraction)) {
+                        result.add(rob.toMigrant());
+                        stats.robDied(rob.getProgram(), rob.getEnergy(),
+                                rob.getAge());
+                        rob.die(programs, robs);
+                    }
+                }
+            }
+        }
+        rememberRobCounts();
+        return result;
+    }
+
+    /**
+     * Places robs coming from another board (after a round) on random
+     * fields.
+     *
+     * @param migrants : robs coming to the board
+     * @param random   : random stream choosing the fields
+     */
+    public void acceptImmigrants(List<Migrant> migrants,
+                                 RandomStream random) {
+        for (Migrant migrant : migrants) {
+            placeRob(migrant.getProgram(), migrant.getDirection(),
+                    migrant.getEnergy(), migrant.getAge(),
+                    migrant.getRandom(), random.nextInt(row_count),
+                    random.nextInt(column_count));
+        }
+        rememberRobCounts();
+    }
+
+    /**
+     * Creates the fields (or chunks, if parameters say so) of the loaded
+     * board and the wheel that grows their food back.
+     *
+     * @param parameters : simulation parameters
+     */
+    private void createFieldsOrCells(Parameters parameters) {
+        boolean is_chunked = parameters.getBoard().equals("chunked");
+        if (is_chunked && !parameters.getEngine().equals("arrays")) {
+            Guard.endProgramWithAMessage("The chunked board needs " +
+                    "the arrays engine");
+        }
+        if (is_chunked && !ChunkedCells.fits(row_count, column_count)) {
+            Guard.endProgramWithAMessage("The board is too big to be " +
+                    "chunked");
+        }
+        if (!is_chunked && !Torus.fits(row_count, column_count)) {
+            Guard.endProgramWithAMessage("The board is too big to keep " +
+                    "all its fields, use \"board chunked\" (with " +
+                    "\"engine arrays\")");
+        }
+        if (is_chunked) {
+            cells = new ChunkedCells(loader);
+        } else {
+            createFields();
+        }
+        loader = null;
+        regrowth = new FoodRegrowth(parameters.getHowLongDoesFoodGrow(),
+                parameters.getHowManyRounds());
+    }
+
+    /**
+     * Switches the stats to the incremental mode and creates
+     * the PopulationEngine, if parameters say so. Has to be called after
+     * the state of the fields is known and before any rob is created.
+     *
+     * @param parameters : simulation parameters
+     */
+    private void startEngine(Parameters parameters) {
+        if (parameters.getStats().equals("incremental")) {
+            stats.startIncrementalMode(fields == null
+                    ? cells.countFood()
+                    : countFoodFields());
+        }
+        programs.setGenerateThreshold(parameters.getGenerateThreshold());
+        if (parameters.getTopGenomes() > 0) {
+            stats.startTrackingGenomes(parameters.getTopGenomes());
+        }
+        if (parameters.getEngine().equals("arrays")) {
+            if (fields != null) {
+                cells = new DenseCells(row_count, column_count, torus,
+                        fields);
+            }
+            population_engine = new PopulationEngine(this, parameters,
+                    cells);
+        } else {
+            food_around = new FoodAround(torus,
+                    index -> fields[index].doesHaveFood());
+            if (parameters.getOutcomeCache() > 0) {
+                outcomes = new OutcomeCache(parameters.getOutcomeCache());
+            }
+        }
+    }
+
+    /**
+     * Prepares the board for performing rounds one by one with
+     * performARound, without any output: creates the fields and places
+     * the robs like performTheSimulation does. Used by the benchmarks.
+     *
+     * @param parameters : simulation parameters
+     */
+    public void prepareRounds(Parameters parameters) {
+        createFieldsOrCells(parameters);
+        startEngine(parameters);
+        createAndPlaceRobs(parameters, new RandomStream(parameters.getSeed()));
+        collectStatsAndUpdateFields(parameters);
+    }
+
+    /**
+     * Performs a single round and collects the stats after it, like
+     * a round of performTheSimulation (without printing anything).
+     * The board has to be prepared with prepareRounds.
+     *
+     * @param parameters : simulation parameters
+     */
+    public void performARound(Parameters parameters) {
+        wykonajTure(parameters);
+        collectStatsAndUpdateFields(parameters);
     }
 
     /**
      * Performs a simulation with given parameters.
-     * Creates and places robs on the board and then prepares starting stats
+     * Creates and places robs on the board (all randomness comes from
+     * the parameters' seed) and then prepares starting stats
      * and  prints them out. After that performs how_many_rounds rounds.
      * int helper helps to control printing the simulation's state after
      * every how_often_to_print rounds.
      * After each round, the program collects simulation stats and prints
      * basic info.
+     * If parameters say so, the robs are stored in a PopulationEngine
+     * instead of Rob objects, and the stats are kept up to date during
+     * the rounds instead of being collected after each one.
+     * Everything is printed through an OutputPipeline, which is closed
+     * (waiting for the last records to be written) in the end.
+     * If a checkpoint is given, the simulation continues from it instead of
+     * creating robs - the rounds after the checkpoint's round are performed
+     * (and printed) exactly like in the simulation that wrote it.
+     * If parameters say so, a checkpoint is written every checkpoint_every
+     * rounds.
+     * If a migration is given, it's called after every round, when
+     * everything about the round is printed.
+     * If parameters say so, the board is chunked - there are no Field
+     * objects then and only the parts of the board with robs are kept in
+     * arrays (see ChunkedCells).
+     * If profiling is on (see Profiler), the phases of every round are
+     * measured and, if parameters say so, a summary is printed every
+     * profile_every rounds.
+     * Once there are no robs (and no migration), the remaining rounds
+     * aren't performed - see performExtinctRounds (they aren't profiled
+     * either).
      *
-     * @param parameters : simulation parameters
+     * @param parameters      : simulation parameters
+     * @param checkpoint_path : checkpoint to continue from (null - start
+     *                        a new simulation)
+     * @param migration       : migration between boards (null - none)
      */
-    public void performTheSimulation(Parameters parameters) {
-        createAndPlaceRobs(parameters);
-        int helper = 1;
-        collectStatsAndUpdateFields(parameters);
-        printOutSimulationState();
-        for (int i = 0; i < parameters.getHowManyRounds(); i++, helper++) {
+    public void performTheSimulation(Parameters parameters,
+                                     String checkpoint_path,
+                                     Migration migration) {
+        output = new OutputPipeline(parameters.getOutput(),
+                parameters.getOutputGzip(), parameters.getOutputBuffer(),
+                parameters.getOutputPolicy());
+        if (!parameters.getCheckpoint().isEmpty()) {
+            checkpoint = new CheckpointWriter(parameters.getCheckpoint());
+        }
+        createFieldsOrCells(parameters);
+        CheckpointReader reader = null;
+        if (checkpoint_path != null) {
+            reader = new CheckpointReader(checkpoint_path);
+            restoreFields(reader);
+        }
+        startEngine(parameters);
+
+        int first_round = 0;
+        if (reader == null) {
+            createAndPlaceRobs(parameters,
+                    new RandomStream(parameters.getSeed()));
+            collectStatsAndUpdateFields(parameters);
+            printOutSimulationState();
+        } else {
+            restoreRobs(reader);
+            first_round = reader.getRoundNumber();
+        }
+        int helper = first_round % parameters.getHowOftenToPrint() + 1;
+        for (int i = first_round; i < parameters.getHowManyRounds();
+             i++, helper++) {
+            if (migration == null && isExtinct()) {
+                helper = performExtinctRounds(parameters, i, helper);
+                break;
+            }
+            if (Profiler.ENABLED) {
+                profiler.startRound();
+            }
             wykonajTure(parameters);
+            if (Profiler.ENABLED) {
+                profiler.endPhase(Profiler.ROUND);
+            }
 
             collectStatsAndUpdateFields(parameters);
+            if (Profiler.ENABLED) {
+                profiler.endPhase(Profiler.STATS);
+            }
             printBasicInfo();
 
             if (helper == parameters.getHowOftenToPrint()) {
                 printOutSimulationState();
                 helper = 0;
             }
+            if (Profiler.ENABLED) {
+                profiler.endPhase(Profiler.PRINT);
+                profiler.endRound(i + 1, stats.getRobCount());
+                if (parameters.getProfileEvery() > 0 &&
+                        (i + 1) % parameters.getProfileEvery() == 0) {
+                    output.printLine(profiler.summary());
+                }
+            }
+            if (checkpoint != null &&
+                    (i + 1) % parameters.getCheckpointEvery() == 0) {
+                writeCheckpoint(i + 1);
+            }
+            if (migration != null) {
+                migration.afterRound(this, i + 1);
+            }
         }
         if (helper != 1) {
             printOutSimulationState();
         }
+        if (checkpoint != null) {
+            checkpoint.close();
+        }
+        output.close();
+    }
+
+    /**
+     * @return profiler measuring the board's rounds
+     */
+    public Profiler getProfiler() {
+        return profiler;
     }
 
     /**
@@ -228,6 +828,103 @@ public class Board {
      * @return a field with given coordinates
      */
     public Field getField(int row, int column) {
-        return fields[row][column];
+        return fields[torus.getIndex(row, column)];
+    }
+
+    /**
+     * Returns a reference to a particular field from the board.
+     * CAUTION: this method returns a particular object, not it's copy.
+     *
+     * @param index : field's index, see Torus
+     * @return a field with a given index
+     */
+    public Field getField(int index) {
+        return fields[index];
+    }
+
+    /**
+     * Returns a reference to a field's neighbour.
+     * CAUTION: this method returns a particular object, not it's copy.
+     *
+     * @param field  : field, whose neighbour is returned
+     * @param number : neighbour's number (Torus.TOP, ..., Torus.TOP_LEFT)
+     * @return the neighbour
+     */
+    public Field getNeighbour(Field field, int number) {
+        return fields[torus.getNeighbour(field.getIndex(), number)];
+    }
+
+    /**
+     * Finds the first neighbour without diagonals with food, clockwise
+     * from the one above (see FoodAround).
+     *
+     * @param field : a field
+     * @return direction (0 - top, ..., 3 - left) of the neighbour, -1 if
+     * there is none
+     */
+    public int findFoodToSniff(Field field) {
+        return FoodAround.firstDirection(food_around.get(field.getIndex()));
+    }
+
+    /**
+     * Finds the first neighbour with food, clockwise from the one above
+     * (see FoodAround).
+     *
+     * @param field : a field
+     * @return the neighbour, null if there is none
+     */
+    public Field findFoodToEat(Field field) {
+        int number = FoodAround.firstNeighbour(
+                food_around.get(field.getIndex()));
+        return number < 0 ? null : getNeighbour(field, number);
+    }
+
+    /**
+     * Finds the outcome of a Rob's program in the board's cache (see
+     * OutcomeCache), executing the program if it isn't there.
+     *
+     * @param program   : Rob's program, which it can use the cache for (see
+     *                  OutcomeCache.canUse)
+     * @param direction : Rob's direction
+     * @param field     : Rob's field
+     * @return the outcome, OutcomeCache.NOT_MEMOIZABLE if it can't be
+     * memoized or outcomes aren't memoized
+     */
+    public int findOutcome(Program program, int direction, Field field) {
+        if (outcomes == null) {
+            return OutcomeCache.NOT_MEMOIZABLE;
+        }
+        return outcomes.get(program, direction,
+                food_around.get(field.getIndex()));
+    }
+
+    /**
+     * @return pool of programs of all living robs
+     */
+    public ProgramPool getProgramPool() {
+        return programs;
+    }
+
+    /**
+     * @return pool of dead robs, reused when robs are born
+     */
+    public RobPool getRobPool() {
+        return robs;
+    }
+
+    /**
+     * @return executor of generated programs of Rob objects
+     */
+    public Rob.Executor getRobExecutor() {
+        return rob_executor;
+    }
+
+    /**
+     * CAUTION: this method returns a particular object, not it's copy.
+     *
+     * @return simulation's stats
+     */
+    public SimulationStats getStats() {
+        return stats;
     }
 }
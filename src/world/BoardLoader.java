@@ -0,0 +1,164 @@
+package world;
+
+import error_handling.BoardFormatException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Class that reads a board file in a single pass. The file is
+ * memory-mapped in windows and copied in chunks, every byte is checked
+ * with plain comparisons: 'x' is a field with food, ' ' is an empty field
+ * and '\n' ends a row. All rows have to be as long as the first one.
+ * A file that isn't a valid board makes the loader throw
+ * a BoardFormatException with the number of the wrong line.
+ * Once read, the board never changes, so a loader can be shared (also
+ * between threads) as a template of many boards.
+ *
+ * @author Adam Al-Hosam
+ */
+public class BoardLoader {
+    // bytes mapped at once (the whole file can be bigger than 2 GB)
+    private static final long WINDOW_SIZE = 1L << 30;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private int row_count;
+    private int column_count;
+    // bit (row * column_count + column) is set for fields with food
+    private final BitSet food;
+
+    /**
+     * Constructor that reads a board from a file.
+     *
+     * @param path_to_file : path to a file with the board's representation
+     * @throws IOException          : if the file can't be read
+     * @throws BoardFormatException : if the file isn't a valid board
+     */
+    public BoardLoader(String path_to_file)
+            throws IOException, BoardFormatException {
+        food = new BitSet();
+        column_count = -1;
+        row_count = 0;
+
+        try (FileChannel channel = FileChannel.open(Path.of(path_to_file),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] chunk = new byte[CHUNK_SIZE];
+            // number of fields in the current row
+            int column = 0;
+            for (long start = 0; start < size; start += WINDOW_SIZE) {
+                MappedByteBuffer window = channel.map(
+                        FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(WINDOW_SIZE, size - start));
+                while (window.hasRemaining()) {
+                    int length = Math.min(chunk.length, window.remaining());
+                    window.get(chunk, 0, length);
+                    for (int i = 0; i < length; i++) {
+                        byte b = chunk[i];
+                        if (b == '\n') {
+                            endRow(column);
+                            column = 0;
+                        } else {
+                            readField(b, column++);
+                        }
+                    }
+                }
+            }
+            // the last row doesn't have to end with '\n'
+            if (column > 0) {
+                endRow(column);
+            }
+        }
+
+        if (row_count == 0) {
+            throw new BoardFormatException(0, "the board is empty");
+        }
+    }
+
+    /**
+     * Reads a field of the current row.
+     *
+     * @param b      : field's byte
+     * @param column : field's column
+     * @throws BoardFormatException : if it's not a valid field
+     */
+    private void readField(byte b, int column) throws BoardFormatException {
+        if (b == 'x') {
+            if (column_count >= 0 && column >= column_count) {
+                throw tooLong();
+            }
+            long index = (long) row_count * Math.max(column_count, 0) +
+                    column;
+            if (index > Integer.MAX_VALUE) {
+                throw new BoardFormatException(row_count + 1,
+                        "the board has too many fields");
+            }
+            food.set((int) index);
+        } else if (b != ' ') {
+            throw new BoardFormatException(row_count + 1,
+                    "forbidden character '" + (char) (b & 0xff) +
+                            "' in column " + (column + 1));
+        }
+    }
+
+    /**
+     * @return exception about a row longer than the first one
+     */
+    private BoardFormatException tooLong() {
+        return new BoardFormatException(row_count + 1,
+                "the row is longer than the first one (" + column_count +
+                        " fields)");
+    }
+
+    /**
+     * Ends the current row.
+     *
+     * @param length : number of fields in the row
+     * @throws BoardFormatException : if the row's length is wrong
+     */
+    private void endRow(int length) throws BoardFormatException {
+        if (column_count < 0) {
+            if (length == 0) {
+                throw new BoardFormatException(1, "the first row is empty");
+            }
+            column_count = length;
+        } else if (length > column_count) {
+            throw tooLong();
+        } else if (length < column_count) {
+            throw new BoardFormatException(row_count + 1,
+                    "the row has " + length + " fields, but the first one" +
+                            " has " + column_count);
+        }
+        if ((long) (row_count + 1) * column_count > Integer.MAX_VALUE) {
+            throw new BoardFormatException(row_count + 1,
+                    "the board has too many fields");
+        }
+        row_count++;
+    }
+
+    /**
+     * @return board's row count
+     */
+    public int getRowCount() {
+        return row_count;
+    }
+
+    /**
+     * @return board's column count
+     */
+    public int getColumnCount() {
+        return column_count;
+    }
+
+    /**
+     * @param index : field's index (row * column_count + column)
+     * @return is there food on the field in the beginning
+     */
+    public boolean hasFood(int index) {
+        return food.get(index);
+    }
+}
@@ -0,0 +1,182 @@
+package world;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Class representing the state of every field used by PopulationEngine:
+ * the heads and tails of fields' rob lists, numbers of Robs and food.
+ * It also decides how fields are numbered, so it knows the neighbours
+ * of every field. DenseCells keeps everything in arrays with an element per
+ * field, ChunkedCells keeps only the parts of the board where something
+ * happens.
+ * Fields of a board are visited row after row, with nextActiveColumn
+ * skipping the ones that certainly have no Robs. A round visits only
+ * the fields with Robs on round start (see forEachActiveField).
+ *
+ * @author Adam Al-Hosam
+ */
+abstract class Cells {
+    static final int NONE = -1;
+
+    final int row_count;
+    final int column_count;
+
+    /**
+     * @param row_count    : board's row count
+     * @param column_count : board's column count
+     */
+    Cells(int row_count, int column_count) {
+        this.row_count = row_count;
+        this.column_count = column_count;
+    }
+
+    /**
+     * @param row    : field's row
+     * @param column : field's column
+     * @return field's index
+     */
+    abstract int getIndex(int row, int column);
+
+    /**
+     * @param index : field's index
+     * @return field's row
+     */
+    abstract int getRow(int index);
+
+    /**
+     * @param index : field's index
+     * @return field's column
+     */
+    abstract int getColumn(int index);
+
+    /**
+     * @param index  : field's index
+     * @param number : neighbour's number (Torus.TOP, ..., Torus.TOP_LEFT)
+     * @return index of the neighbour
+     */
+    abstract int getNeighbour(int index, int number);
+
+    /**
+     * @param index     : field's index
+     * @param direction : Rob's direction (0 - top, ..., 3 - left)
+     * @return index of the neighbour in the direction
+     */
+    int getNeighbourInDirection(int index, int direction) {
+        return getNeighbour(index, direction << 1);
+    }
+
+    /**
+     * Finds the first column (not smaller than a given one) of a row that
+     * can have Robs on it.
+     *
+     * @param row    : a row
+     * @param column : column to start from
+     * @return the column, column_count if there is none
+     */
+    abstract int nextActiveColumn(int row, int column);
+
+    /**
+     * Passes every field with Robs on round start to an action, row after
+     * row (in the order in which a round visits them).
+     *
+     * @param action : action performed on the fields' indices
+     */
+    abstract void forEachActiveField(IntConsumer action);
+
+    /**
+     * @param field : field's index
+     * @return the first Rob on the field (NONE if there are none)
+     */
+    abstract int getHead(int field);
+
+    /**
+     * @param field : field's index
+     * @param slot  : the new first Rob on the field
+     */
+    abstract void setHead(int field, int slot);
+
+    /**
+     * @param field : field's index
+     * @return the last Rob on the field (NONE if there are none)
+     */
+    abstract int getTail(int field);
+
+    /**
+     * @param field : field's index
+     * @param slot  : the new last Rob on the field
+     */
+    abstract void setTail(int field, int slot);
+
+    /**
+     * @param field : field's index
+     * @return number of Robs on the field
+     */
+    abstract int getRobCount(int field);
+
+    /**
+     * @param field : field's index
+     * @param delta : change of the number of Robs on the field
+     */
+    abstract void changeRobCount(int field, int delta);
+
+    /**
+     * @param field : field's index
+     * @return number of Robs on the field on round start
+     */
+    abstract int getRobCountOnRoundStart(int field);
+
+    /**
+     * Tells about fields that have become occupied (their rob lists were
+     * empty) since the last rememberRobCounts.
+     *
+     * @param fields : indices of the fields
+     * @param count  : number of the fields
+     */
+    abstract void fieldsOccupied(int[] fields, int count);
+
+    /**
+     * Remembers how many Robs are on every field, so that only they act
+     * in the next round.
+     */
+    abstract void rememberRobCounts();
+
+    /**
+     * @param field : field's index
+     * @return is it a field with food (that can grow)
+     */
+    abstract boolean isFoodField(int field);
+
+    /**
+     * @param field : field's index
+     * @return is there food on the field
+     */
+    abstract boolean hasFood(int field);
+
+    /**
+     * @param field    : field's index
+     * @param has_food : is there food on the field now
+     */
+    abstract void setFood(int field, boolean has_food);
+
+    /**
+     * Finds the neighbours with food, checking them one by one (DenseCells
+     * keeps them in a FoodAround instead).
+     *
+     * @param field : field's index
+     * @return bits of the field's neighbours with food (see FoodAround)
+     */
+    int getFoodAround(int field) {
+        int result = 0;
+        for (int number = Torus.TOP; number <= Torus.TOP_LEFT; number++) {
+            if (hasFood(getNeighbour(field, number))) {
+                result |= 1 << number;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return number of fields with food
+     */
+    abstract int countFood();
+}
@@ -0,0 +1,404 @@
+package world;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Class representing the state of fields of a board divided into chunks of
+ * CHUNK_SIZE x CHUNK_SIZE fields. Only chunks with Robs are active - they
+ * have arrays with an element per field (Chunk). A chunk becomes active when
+ * something is written to it and is released (after a round) when there
+ * are no Robs on it - then only its food is kept, as bits. Chunks with no
+ * food (or food on every field) share one array of bits, so a huge, mostly
+ * empty board takes little more memory than its active chunks.
+ * <p>
+ * A field's index is (chunk << 12) | (local_row << 6) | local_column,
+ * where chunk = (row / CHUNK_SIZE) * chunk_column_count + column /
+ * CHUNK_SIZE, so it isn't the same as in Torus.
+ * Tiles processed at the same time can write different fields of the same
+ * chunk - every field has its own element of the arrays (also for food),
+ * and activating a chunk is synchronized.
+ * Food growing back (between rounds, see FoodRegrowth) on a chunk that
+ * isn't active is set in its bits, so no chunk has to stay active because
+ * of its food.
+ *
+ * @author Adam Al-Hosam
+ */
+class ChunkedCells extends Cells {
+    static final int SHIFT = 6;
+    static final int CHUNK_SIZE = 1 << SHIFT;
+    private static final int MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_SHIFT = 2 * SHIFT;
+    private static final int CHUNK_FIELDS = 1 << CHUNK_SHIFT;
+    private static final int WORDS = CHUNK_FIELDS / Long.SIZE;
+    private static final long[] ALL_EMPTY = new long[WORDS];
+    private static final long[] ALL_FOOD = new long[WORDS];
+
+    static {
+        Arrays.fill(ALL_FOOD, -1L);
+    }
+
+    // row offsets and column offsets of neighbours, see Torus
+    private static final int[] ROW_OFFSET = {-1, -1, 0, 1, 1, 1, 0, -1};
+    private static final int[] COLUMN_OFFSET = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    /**
+     * Arrays of an active chunk.
+     */
+    private static class Chunk {
+        final int[] head = new int[CHUNK_FIELDS];
+        final int[] tail = new int[CHUNK_FIELDS];
+        final int[] rob_count = new int[CHUNK_FIELDS];
+        final int[] rob_count_on_round_start = new int[CHUNK_FIELDS];
+        // 1 - food on the field
+        final byte[] food = new byte[CHUNK_FIELDS];
+
+        /**
+         * Constructor that creates a chunk without Robs and with given food.
+         *
+         * @param food_bits : bit per field, set if there is food on it
+         */
+        Chunk(long[] food_bits) {
+            Arrays.fill(head, NONE);
+            Arrays.fill(tail, NONE);
+            for (int i = 0; i < CHUNK_FIELDS; i++) {
+                food[i] = (byte) (food_bits[i >>> 6] >>> i & 1);
+            }
+        }
+    }
+
+    private final int chunk_column_count;
+    // bits of fields with food (that can grow), shared if possible
+    private final long[][] layout;
+    // bits of fields with food now, used when the chunk isn't active
+    private final long[][] food;
+    private final Chunk[] chunks;
+    // last local row and column of every chunk (lower on the board's edges)
+    private final byte[] last_row;
+    private final byte[] last_column;
+    // used by rememberRobCounts, so that it doesn't create an array
+    private final long[] food_bits = new long[WORDS];
+    // used by forEachActiveField - active chunks of a row of chunks
+    private final int[] row_chunks;
+
+    /**
+     * Constructor that divides a loaded board into chunks.
+     *
+     * @param loader : loaded board
+     */
+    ChunkedCells(BoardLoader loader) {
+        super(loader.getRowCount(), loader.getColumnCount());
+        int chunk_row_count = (row_count + MASK) >> SHIFT;
+        chunk_column_count = (column_count + MASK) >> SHIFT;
+        int chunk_count = chunk_row_count * chunk_column_count;
+        layout = new long[chunk_count][];
+        food = new long[chunk_count][];
+        chunks = new Chunk[chunk_count];
+        last_row = new byte[chunk_count];
+        last_column = new byte[chunk_count];
+        row_chunks = new int[chunk_column_count];
+
+        long[] bits = new long[WORDS];
+        for (int chunk = 0; chunk < chunk_count; chunk++) {
+            int first_row = chunk / chunk_column_count << SHIFT;
+            int first_column = chunk % chunk_column_count << SHIFT;
+            Arrays.fill(bits, 0);
+            for (int row = first_row;
+                 row < Math.min(first_row + CHUNK_SIZE, row_count); row++) {
+                for (int column = first_column;
+                     column < Math.min(first_column + CHUNK_SIZE,
+                             column_count); column++) {
+                    if (loader.hasFood(row * column_count + column)) {
+                        int local = (row & MASK) << SHIFT | column & MASK;
+                        bits[local >>> 6] |= 1L << local;
+                    }
+                }
+            }
+            last_row[chunk] = (byte) (Math.min(first_row + CHUNK_SIZE,
+                    row_count) - first_row - 1);
+            last_column[chunk] = (byte) (Math.min(first_column + CHUNK_SIZE,
+                    column_count) - first_column - 1);
+            layout[chunk] = share(bits);
+            food[chunk] = layout[chunk];
+        }
+    }
+
+    /**
+     * Checks if a board with given dimensions can be divided into chunks
+     * without running out of indices.
+     *
+     * @param row_count    : board's row count
+     * @param column_count : board's column count
+     * @return true if it can
+     */
+    static boolean fits(int row_count, int column_count) {
+        long chunk_count = (long) ((row_count + MASK) >> SHIFT) *
+                ((column_count + MASK) >> SHIFT);
+        return chunk_count << CHUNK_SHIFT <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param bits : bits of a chunk's fields
+     * @return the bits, a shared array if possible, else a copy
+     */
+    private static long[] share(long[] bits) {
+        if (Arrays.equals(bits, ALL_EMPTY)) {
+            return ALL_EMPTY;
+        }
+        if (Arrays.equals(bits, ALL_FOOD)) {
+            return ALL_FOOD;
+        }
+        return bits.clone();
+    }
+
+    /**
+     * Returns an active chunk, activating it if necessary.
+     *
+     * @param chunk : chunk's number
+     * @return the chunk's arrays
+     */
+    private Chunk activate(int chunk) {
+        Chunk result = chunks[chunk];
+        if (result == null) {
+            synchronized (this) {
+                result = chunks[chunk];
+                if (result == null) {
+                    result = new Chunk(food[chunk]);
+                    chunks[chunk] = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    int getIndex(int row, int column) {
+        int chunk = (row >> SHIFT) * chunk_column_count + (column >> SHIFT);
+        return chunk << CHUNK_SHIFT | (row & MASK) << SHIFT | column & MASK;
+    }
+
+    @Override
+    int getRow(int index) {
+        return (index >>> CHUNK_SHIFT) / chunk_column_count << SHIFT |
+                index >> SHIFT & MASK;
+    }
+
+    @Override
+    int getColumn(int index) {
+        return (index >>> CHUNK_SHIFT) % chunk_column_count << SHIFT |
+                index & MASK;
+    }
+
+    @Override
+    int getNeighbour(int index, int number) {
+        int chunk = index >>> CHUNK_SHIFT;
+        int local_row = (index >> SHIFT & MASK) + ROW_OFFSET[number];
+        int local_column = (index & MASK) + COLUMN_OFFSET[number];
+        // neighbours in the same chunk are found without division
+        if (local_row >= 0 && local_row <= last_row[chunk] &&
+                local_column >= 0 && local_column <= last_column[chunk]) {
+            return chunk << CHUNK_SHIFT | local_row << SHIFT | local_column;
+        }
+        int row = getRow(index) + ROW_OFFSET[number];
+        int column = getColumn(index) + COLUMN_OFFSET[number];
+        if (row < 0) {
+            row = row_count - 1;
+        } else if (row == row_count) {
+            row = 0;
+        }
+        if (column < 0) {
+            column = column_count - 1;
+        } else if (column == column_count) {
+            column = 0;
+        }
+        return getIndex(row, column);
+    }
+
+    @Override
+    int nextActiveColumn(int row, int column) {
+        int first_chunk = (row >> SHIFT) * chunk_column_count;
+        int last_chunk = first_chunk + chunk_column_count;
+        for (int chunk = first_chunk + (column >> SHIFT); chunk < last_chunk;
+             chunk++) {
+            if (chunks[chunk] != null) {
+                return Math.max(column, chunk - first_chunk << SHIFT);
+            }
+        }
+        return column_count;
+    }
+
+    /**
+     * Visits the active chunks of every row of chunks, one row of fields
+     * after another.
+     */
+    @Override
+    void forEachActiveField(IntConsumer action) {
+        for (int first_chunk = 0; first_chunk < chunks.length;
+             first_chunk += chunk_column_count) {
+            int count = 0;
+            for (int chunk = first_chunk;
+                 chunk < first_chunk + chunk_column_count; chunk++) {
+                if (chunks[chunk] != null) {
+                    row_chunks[count++] = chunk;
+                }
+            }
+            for (int local_row = 0; count > 0 &&
+                    local_row <= last_row[first_chunk]; local_row++) {
+                for (int i = 0; i < count; i++) {
+                    int chunk = row_chunks[i];
+                    int[] robs = chunks[chunk].rob_count_on_round_start;
+                    int first = local_row << SHIFT;
+                    for (int local = first;
+                         local <= first + last_column[chunk]; local++) {
+                        if (robs[local] > 0) {
+                            action.accept(chunk << CHUNK_SHIFT | local);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    int getHead(int field) {
+        Chunk chunk = chunks[field >>> CHUNK_SHIFT];
+        return chunk == null ? NONE : chunk.head[field & CHUNK_FIELDS - 1];
+    }
+
+    @Override
+    void setHead(int field, int slot) {
+        activate(field >>> CHUNK_SHIFT).head[field & CHUNK_FIELDS - 1] = slot;
+    }
+
+    @Override
+    int getTail(int field) {
+        Chunk chunk = chunks[field >>> CHUNK_SHIFT];
+        return chunk == null ? NONE : chunk.tail[field & CHUNK_FIELDS - 1];
+    }
+
+    @Override
+    void setTail(int field, int slot) {
+        activate(field >>> CHUNK_SHIFT).tail[field & CHUNK_FIELDS - 1] = slot;
+    }
+
+    @Override
+    int getRobCount(int field) {
+        Chunk chunk = chunks[field >>> CHUNK_SHIFT];
+        return chunk == null ? 0 : chunk.rob_count[field & CHUNK_FIELDS - 1];
+    }
+
+    @Override
+    void changeRobCount(int field, int delta) {
+        activate(field >>> CHUNK_SHIFT)
+                .rob_count[field & CHUNK_FIELDS - 1] += delta;
+    }
+
+    @Override
+    int getRobCountOnRoundStart(int field) {
+        Chunk chunk = chunks[field >>> CHUNK_SHIFT];
+        return chunk == null
+                ? 0
+                : chunk.rob_count_on_round_start[field & CHUNK_FIELDS - 1];
+    }
+
+    @Override
+    void fieldsOccupied(int[] fields, int count) {
+        // a chunk becomes active itself, when a Rob is placed on it
+    }
+
+    /**
+     * Remembers the numbers of Robs and releases chunks without Robs,
+     * keeping their food as bits.
+     */
+    @Override
+    void rememberRobCounts() {
+        long[] bits = food_bits;
+        for (int number = 0; number < chunks.length; number++) {
+            Chunk chunk = chunks[number];
+            if (chunk == null) {
+                continue;
+            }
+            int robs = 0;
+            for (int i = 0; i < CHUNK_FIELDS; i++) {
+                chunk.rob_count_on_round_start[i] = chunk.rob_count[i];
+                robs += chunk.rob_count[i];
+            }
+            if (robs > 0) {
+                continue;
+            }
+            Arrays.fill(bits, 0);
+            for (int i = 0; i < CHUNK_FIELDS; i++) {
+                bits[i >>> 6] |= (long) chunk.food[i] << i;
+            }
+            food[number] = Arrays.equals(bits, layout[number])
+                    ? layout[number]
+                    : share(bits);
+            chunks[number] = null;
+        }
+    }
+
+    @Override
+    boolean isFoodField(int field) {
+        int local = field & CHUNK_FIELDS - 1;
+        return (layout[field >>> CHUNK_SHIFT][local >>> 6] >>> local & 1) != 0;
+    }
+
+    @Override
+    boolean hasFood(int field) {
+        int local = field & CHUNK_FIELDS - 1;
+        Chunk chunk = chunks[field >>> CHUNK_SHIFT];
+        if (chunk != null) {
+            return chunk.food[local] != 0;
+        }
+        return (food[field >>> CHUNK_SHIFT][local >>> 6] >>> local & 1) != 0;
+    }
+
+    /**
+     * Sets the food of a field. The bits of a chunk that isn't active are
+     * changed without activating it - that's done only between rounds.
+     * Shared bits (see share) are copied on the first change, later changes
+     * don't allocate.
+     *
+     * @param field    : field's index
+     * @param has_food : is there food on the field
+     */
+    @Override
+    void setFood(int field, boolean has_food) {
+        int number = field >>> CHUNK_SHIFT;
+        int local = field & CHUNK_FIELDS - 1;
+        Chunk chunk = chunks[number];
+        if (chunk != null) {
+            chunk.food[local] = (byte) (has_food ? 1 : 0);
+            return;
+        }
+        long[] bits = food[number];
+        if (bits == ALL_EMPTY || bits == ALL_FOOD || bits == layout[number]) {
+            // shared bits are copied once, the chunk's own are changed
+            bits = bits.clone();
+            food[number] = bits;
+        }
+        if (has_food) {
+            bits[local >>> 6] |= 1L << local;
+        } else {
+            bits[local >>> 6] &= ~(1L << local);
+        }
+    }
+
+    @Override
+    int countFood() {
+        int result = 0;
+        for (int number = 0; number < chunks.length; number++) {
+            Chunk chunk = chunks[number];
+            if (chunk == null) {
+                for (long word : food[number]) {
+                    result += Long.bitCount(word);
+                }
+            } else {
+                for (byte b : chunk.food) {
+                    result += b;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,186 @@
+package world;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Class representing the state of fields kept in arrays with an element per
+ * field, numbered like in Torus. Only the fields with Robs on round start
+ * are active (see ActiveFields), so a round doesn't visit the whole board.
+ *
+ * @author Adam Al-Hosam
+ */
+class DenseCells extends Cells {
+    private final Torus torus;
+    private final int[] head;
+    private final int[] tail;
+    private final int[] rob_count;
+    private final int[] rob_count_on_round_start;
+    private final boolean[] is_food_field;
+    private final boolean[] has_food;
+    private final FoodAround food_around;
+    // fields with Robs on round start
+    private final ActiveFields active = new ActiveFields();
+    // passed to active - created once, so that rounds don't create objects
+    private final IntPredicate is_occupied;
+    private final IntConsumer remember_rob_count;
+
+    /**
+     * Constructor that copies the state of the board's fields.
+     *
+     * @param row_count    : board's row count
+     * @param column_count : board's column count
+     * @param torus        : board's shape
+     * @param fields       : board's fields
+     */
+    DenseCells(int row_count, int column_count, Torus torus,
+               Field[] fields) {
+        super(row_count, column_count);
+        this.torus = torus;
+        int field_count = torus.getFieldCount();
+        head = new int[field_count];
+        tail = new int[field_count];
+        rob_count = new int[field_count];
+        rob_count_on_round_start = new int[field_count];
+        is_occupied = field -> rob_count[field] > 0;
+        remember_rob_count =
+                field -> rob_count_on_round_start[field] = rob_count[field];
+        is_food_field = new boolean[field_count];
+        has_food = new boolean[field_count];
+        Arrays.fill(head, NONE);
+        Arrays.fill(tail, NONE);
+        for (int field = 0; field < field_count; field++) {
+            is_food_field[field] = fields[field] instanceof FieldWithFood;
+            has_food[field] = fields[field].doesHaveFood();
+        }
+        food_around = new FoodAround(torus, field -> has_food[field]);
+    }
+
+    @Override
+    int getIndex(int row, int column) {
+        return torus.getIndex(row, column);
+    }
+
+    @Override
+    int getRow(int index) {
+        return index / column_count;
+    }
+
+    @Override
+    int getColumn(int index) {
+        return index % column_count;
+    }
+
+    @Override
+    int getNeighbour(int index, int number) {
+        return torus.getNeighbour(index, number);
+    }
+
+    @Override
+    int getNeighbourInDirection(int index, int direction) {
+        return torus.getNeighbourInDirection(index, direction);
+    }
+
+    @Override
+    int nextActiveColumn(int row, int column) {
+        if (column >= column_count) {
+            return column_count;
+        }
+        int next = active.next(torus.getIndex(row, column));
+        if (next < 0 || next / column_count != row) {
+            return column_count;
+        }
+        return next % column_count;
+    }
+
+    @Override
+    void forEachActiveField(IntConsumer action) {
+        for (int i = 0; i < active.size(); i++) {
+            action.accept(active.get(i));
+        }
+    }
+
+    @Override
+    int getHead(int field) {
+        return head[field];
+    }
+
+    @Override
+    void setHead(int field, int slot) {
+        head[field] = slot;
+    }
+
+    @Override
+    int getTail(int field) {
+        return tail[field];
+    }
+
+    @Override
+    void setTail(int field, int slot) {
+        tail[field] = slot;
+    }
+
+    @Override
+    int getRobCount(int field) {
+        return rob_count[field];
+    }
+
+    @Override
+    void changeRobCount(int field, int delta) {
+        rob_count[field] += delta;
+    }
+
+    @Override
+    int getRobCountOnRoundStart(int field) {
+        return rob_count_on_round_start[field];
+    }
+
+    @Override
+    void fieldsOccupied(int[] fields, int count) {
+        active.add(fields, count);
+    }
+
+    /**
+     * Remembers the numbers of Robs of the active and newly occupied fields
+     * - every other field had no Robs and still has none.
+     */
+    @Override
+    void rememberRobCounts() {
+        active.update(is_occupied, remember_rob_count);
+    }
+
+    @Override
+    boolean isFoodField(int field) {
+        return is_food_field[field];
+    }
+
+    @Override
+    boolean hasFood(int field) {
+        return has_food[field];
+    }
+
+    @Override
+    void setFood(int field, boolean has_food) {
+        if (this.has_food[field] != has_food) {
+            this.has_food[field] = has_food;
+            food_around.setFood(field, has_food);
+        }
+    }
+
+    @Override
+    int getFoodAround(int field) {
+        return food_around.get(field);
+    }
+
+    @Override
+    int countFood() {
+        int result = 0;
+        for (boolean food : has_food) {
+            if (food) {
+                result++;
+            }
+        }
+        return result;
+    }
+}
@@ -6,7 +6,7 @@ package world;
  * @author Adam Al-Hosam
  */
 public class EmptyField extends Field {
-    public EmptyField(int row, int column) {
-        super(row, column);
+    public EmptyField(int row, int column, int index) {
+        super(row, column, index);
     }
 }
@@ -1,8 +1,8 @@
 package world;
 
+import checkpoint.CheckpointWriter;
 import inhabitants_of_the_world.Rob;
-
-import java.util.LinkedList;
+import output.OutputPipeline;
 
 /**
  * Class representing a single field in the simulation
@@ -12,8 +12,14 @@ import java.util.LinkedList;
 public abstract class Field {
     private final int row;
     private final int column;
-    // A list of Rob's being on this field at the moment
-    private LinkedList<Rob> robs;
+    // field's index on the board, see Torus
+    private final int index;
+    // A list of Rob's being on this field at the moment - the first and
+    // the last one. Robs link each other (see Rob.linkOnField), so adding
+    // and removing a Rob takes constant time.
+    private Rob first_rob;
+    private Rob last_rob;
+    private int rob_count;
     // this field helps not to count the same robs during one round
     // for example when they move from one field to the other
     private int rob_count_on_round_start;
@@ -24,12 +30,16 @@ public abstract class Field {
      *
      * @param row    : field's x coordinate
      * @param column : field's y coordinate
+     * @param index  : field's index on the board
      */
-    public Field(int row, int column) {
-        this.robs = new LinkedList<Rob>();
+    public Field(int row, int column, int index) {
+        first_rob = null;
+        last_rob = null;
+        rob_count = 0;
         rob_count_on_round_start = 0;
         this.row = row;
         this.column = column;
+        this.index = index;
     }
 
     /**
@@ -38,7 +48,12 @@ public abstract class Field {
      * @param new_rob : Rob object to place
      */
     public void placeNextRob(Rob new_rob) {
-        this.robs.addFirst(new_rob);
+        new_rob.linkOnField(first_rob);
+        if (first_rob == null) {
+            last_rob = new_rob;
+        }
+        first_rob = new_rob;
+        rob_count++;
     }
 
     /**
@@ -52,55 +67,52 @@ public abstract class Field {
      * @param parameters    : simulation parameters
      */
     public void acceptARob(Rob rob_to_accept, Parameters parameters) {
-        this.robs.addFirst(rob_to_accept);
+        placeNextRob(rob_to_accept);
     }
 
     /**
-     * Removes a given Rob from rob list
+     * Removes a given Rob from rob list, if it's there. A Rob can only be
+     * on the list of the field it's assigned to.
      *
      * @param rob : rob to remove
      */
     public void releaseARob(Rob rob) {
-        robs.remove(rob);
+        if (!rob.isOnFieldList()) {
+            return;
+        }
+        if (first_rob == rob) {
+            first_rob = rob.getNextOnField();
+        }
+        if (last_rob == rob) {
+            last_rob = rob.getPreviousOnField();
+        }
+        rob.unlinkFromField();
+        rob_count--;
     }
 
     /**
      * The next 4 methods are very similar.
      * I am using the fact that board's edges are "connected".
-     * (top <-> bottom,  left <-> right).
-     * It is similar to using modulo, but I need the remainder to always be
-     * positive, also I am using the fact that a value change can only
-     * make the number be at most 1 over the boundaries.
+     * (top <-> bottom,  left <-> right). The neighbours are computed once
+     * by the board's Torus, so each of them is a single table lookup.
      *
      * @param board : simulation board
      * @return field in an appropriate position in relation to this
      */
     public Field getFieldAbove(Board board) {
-        int new_row = this.row - 1 < 0
-                ? this.row - 1 + board.getRowCount()
-                : this.row - 1;
-        return board.getField(new_row, this.column);
+        return board.getNeighbour(this, Torus.TOP);
     }
 
     public Field getFieldBelow(Board board) {
-        int new_row = this.row + 1 >= board.getRowCount()
-                ? this.row + 1 - board.getRowCount()
-                : this.row + 1;
-        return board.getField(new_row, this.column);
+        return board.getNeighbour(this, Torus.BOTTOM);
     }
 
     public Field getFieldToTheRight(Board board) {
-        int new_column = this.column + 1 >= board.getColumnCount()
-                ? this.column + 1 - board.getColumnCount()
-                : this.column + 1;
-        return board.getField(this.row, new_column);
+        return board.getNeighbour(this, Torus.RIGHT);
     }
 
     public Field getFieldToTheLeft(Board board) {
-        int new_column = this.column - 1 < 0
-                ? this.column - 1 + board.getColumnCount()
-                : this.column - 1;
-        return board.getField(this.row, new_column);
+        return board.getNeighbour(this, Torus.LEFT);
     }
 
     /**
@@ -118,10 +130,12 @@ public abstract class Field {
      */
     public void performARound(Parameters parameters, Board board) {
         for (int i = 0; i < rob_count_on_round_start; i++) {
-            Rob current_rob = this.robs.removeLast();
+            Rob current_rob = this.last_rob;
+            releaseARob(current_rob);
             if (!current_rob.tryToSurviveARound(parameters, board)) {
-                current_rob.die();
-            } else if (this.robs.peekFirst() != current_rob &&
+                current_rob.die(board.getProgramPool(),
+                        board.getRobPool());
+            } else if (this.first_rob != current_rob &&
                     current_rob.getField() == this && current_rob
                     .getEnergy() != -1) {
                 this.placeNextRob(current_rob);
@@ -135,25 +149,49 @@ public abstract class Field {
      * @param p : simulation parameters
      */
     public void updateFieldState(Parameters p) {
-        this.rob_count_on_round_start = robs.size();
+        rememberRobCount();
+    }
+
+    /**
+     * Remembers how many robs are on the field, so that only they act in
+     * the next round.
+     */
+    public void rememberRobCount() {
+        this.rob_count_on_round_start = rob_count;
     }
 
     /**
      * @return length of rob list
      */
     public int getRobCount() {
-        return this.robs.size();
+        return this.rob_count;
     }
 
     /**
-     * toArray method creates a safe copy, so I can be sure that when
-     * passing its result the robs field will not change - only the owner
-     * of the attribute can change it
+     * Returns the first Rob of the list, the next ones can be reached with
+     * Rob.getNextOnField, without creating any object.
+     * CAUTION: the list mustn't be changed while it's being read.
      *
-     * @return an array with a safe robs attribute copy
+     * @return the first Rob on the field, null if there is none
+     */
+    public Rob getFirstRob() {
+        return first_rob;
+    }
+
+    /**
+     * Creates a safe copy, so I can be sure that when passing its result
+     * the rob list will not change - only the owner of the attribute can
+     * change it
+     *
+     * @return an array with robs from the list (from the first one)
      */
     public Rob[] robsCopyArray() {
-        return robs.toArray(new Rob[0]);
+        Rob[] result = new Rob[rob_count];
+        int i = 0;
+        for (Rob rob = first_rob; rob != null; rob = rob.getNextOnField()) {
+            result[i++] = rob;
+        }
+        return result;
     }
 
     /**
@@ -166,17 +204,54 @@ public abstract class Field {
     /**
      * Method to output the simulation statistics. Prints robs state one by one
      * from robs list.
+     *
+     * @param output : simulation's output
+     */
+    public void printRobsStates(OutputPipeline output) {
+        for (Rob rob = first_rob; rob != null; rob = rob.getNextOnField()) {
+            rob.printState(output);
+        }
+    }
+
+    /**
+     * Puts the robs from the list in a checkpoint, from the last one, so
+     * that placing them one by one with placeNextRob restores the list.
+     *
+     * @param checkpoint : checkpoint being written
      */
-    public void printRobsStates() {
-        for (Rob rob : robs) {
-            System.out.println(rob);
+    public void writeRobs(CheckpointWriter checkpoint) {
+        checkpoint.putRobCount(rob_count);
+        for (Rob rob = last_rob; rob != null;
+             rob = rob.getPreviousOnField()) {
+            rob.writeTo(checkpoint);
         }
     }
 
+    /**
+     * @return field's index on the board
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return field's row
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * @return field's column
+     */
+    public int getColumn() {
+        return column;
+    }
+
     /**
      * @return Coordinates this field on the board as a string.
      */
     public String getCoordinates() {
-        return "row: " + (row + 1) + ", column: " + (column + 1);
+        return Torus.coordinates(row, column);
     }
 }
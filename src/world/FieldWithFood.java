@@ -8,9 +8,6 @@ import inhabitants_of_the_world.Rob;
  * @author Adam Al-Hosam
  */
 public class FieldWithFood extends Field {
-    // controls how many rounds passed since the last person ate something on
-    // this field
-    private int is_food_growing;
     private boolean is_food_ready;
 
     /**
@@ -18,34 +15,26 @@ public class FieldWithFood extends Field {
      *
      * @param row    : field's x coordinate
      * @param column : field's y coordinate
+     * @param index  : field's index on the board
      */
-    public FieldWithFood(int row, int column) {
-        super(row, column);
-        is_food_growing = 0;
+    public FieldWithFood(int row, int column, int index) {
+        super(row, column, index);
         is_food_ready = true;
     }
 
     /**
-     * Gets called after a Rob eats on this field.
+     * Gets called after a Rob eats on this field. The food grows back when
+     * the board's FoodRegrowth says so (see growFood).
      */
     public void startGrowingFood() {
         is_food_ready = false;
-        is_food_growing = 0;
     }
 
     /**
-     * Extends a method from superclass by updating the state of food growth.
-     *
-     * @param p : simulation parameters
+     * Gets called when the food has grown back.
      */
-    public void updateFieldsState(Parameters p) {
-        super.updateFieldState(p);
-        if (is_food_growing == p.getHowLongDoesFoodGrow()) {
-            is_food_ready = true;
-            is_food_growing = 0;
-        } else {
-            is_food_growing++;
-        }
+    public void growFood() {
+        is_food_ready = true;
     }
 
     /**
@@ -64,6 +53,15 @@ public class FieldWithFood extends Field {
         }
     }
 
+    /**
+     * Sets the state of the food, read from a checkpoint.
+     *
+     * @param is_ready : is there food on the field
+     */
+    public void restoreFood(boolean is_ready) {
+        is_food_ready = is_ready;
+    }
+
     /**
      * @return is there food on the field
      */
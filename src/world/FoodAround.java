@@ -0,0 +1,97 @@
+package world;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Class representing which neighbours of every field have food - a byte
+ * per field, whose bit number i is set if the neighbour number i
+ * (Torus.TOP, ..., Torus.TOP_LEFT) has food. It's updated whenever a field
+ * gains or loses food (the field is the neighbour number i + 4 of its
+ * neighbour number i), so "sniff" and "eat" find their field with a single
+ * look at the byte and a table, instead of checking the neighbours one by
+ * one. Neighbours are numbered clockwise from the one above, so the tables
+ * give the lowest set bit (of the bits without diagonals, for "sniff").
+ *
+ * @author Adam Al-Hosam
+ */
+class FoodAround {
+    // for every byte: the first neighbour with food, -1 if there is none
+    private static final byte[] FIRST_NEIGHBOUR = new byte[256];
+    // for every byte: direction of the first neighbour without diagonals
+    // with food, -1 if there is none
+    private static final byte[] FIRST_DIRECTION = new byte[256];
+
+    static {
+        for (int mask = 0; mask < 256; mask++) {
+            FIRST_NEIGHBOUR[mask] = (byte) (mask == 0
+                    ? -1
+                    : Integer.numberOfTrailingZeros(mask));
+            int straight = mask & 0x55;
+            FIRST_DIRECTION[mask] = (byte) (straight == 0
+                    ? -1
+                    : Integer.numberOfTrailingZeros(straight) >> 1);
+        }
+    }
+
+    private final Torus torus;
+    private final byte[] masks;
+
+    /**
+     * Constructor that finds the neighbours with food of every field.
+     *
+     * @param torus    : board's shape
+     * @param has_food : tells if a field (given its index) has food
+     */
+    FoodAround(Torus torus, IntPredicate has_food) {
+        this.torus = torus;
+        masks = new byte[torus.getFieldCount()];
+        for (int field = 0; field < masks.length; field++) {
+            if (has_food.test(field)) {
+                setFood(field, true);
+            }
+        }
+    }
+
+    /**
+     * Notes that a field has gained or lost food. Different threads can
+     * call it at the same time only for fields without common neighbours.
+     *
+     * @param field    : field's index
+     * @param has_food : does the field have food now
+     */
+    void setFood(int field, boolean has_food) {
+        for (int number = Torus.TOP; number <= Torus.TOP_LEFT; number++) {
+            int neighbour = torus.getNeighbour(field, number);
+            int bit = 1 << (number + 4 & 7);
+            masks[neighbour] = (byte) (has_food
+                    ? masks[neighbour] | bit
+                    : masks[neighbour] & ~bit);
+        }
+    }
+
+    /**
+     * @param field : field's index
+     * @return bits of the field's neighbours with food
+     */
+    int get(int field) {
+        return masks[field] & 0xff;
+    }
+
+    /**
+     * @param mask : bits of a field's neighbours with food
+     * @return number of the first neighbour with food (clockwise from
+     * Torus.TOP), -1 if there is none
+     */
+    static int firstNeighbour(int mask) {
+        return FIRST_NEIGHBOUR[mask];
+    }
+
+    /**
+     * @param mask : bits of a field's neighbours with food
+     * @return direction (0 - top, ..., 3 - left) of the first neighbour
+     * without diagonals with food, -1 if there is none
+     */
+    static int firstDirection(int mask) {
+        return FIRST_DIRECTION[mask];
+    }
+}
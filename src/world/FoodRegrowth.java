@@ -0,0 +1,170 @@
+package world;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Class that schedules growing the food back - a timing wheel.
+ * Food eaten in round r grows back after round r + how_long_does_food_grow
+ * (like a field whose food grows one round after every round and is ready
+ * after how_long_does_food_grow + 1 of them). A field is put in the bucket
+ * of the round its food grows back in, so after a round only the fields of
+ * one bucket are visited - the cost depends on the amount of eaten food,
+ * not on the size of the board.
+ * There are at most MAX_BUCKET_COUNT buckets, so with a longer growth
+ * a bucket can hold fields of later rounds too - they stay in it until
+ * their round comes.
+ * Food that grows back after the last round isn't scheduled at all - its
+ * fields are only kept for checkpoints (a restored simulation can have
+ * more rounds).
+ *
+ * @author Adam Al-Hosam
+ */
+class FoodRegrowth {
+    private static final int MAX_BUCKET_COUNT = 1 << 10;
+
+    private final int how_long_does_food_grow;
+    private final int how_many_rounds;
+    // fields and rounds in which their food grows back, bucket by bucket
+    private final int[][] fields;
+    private final int[][] rounds;
+    private final int[] sizes;
+    private int size;
+    // fields whose food grows back after the last round and rounds in which
+    // it was eaten
+    private int[] late_fields = new int[0];
+    private int[] late_rounds = new int[0];
+    private int late_count;
+
+    /**
+     * Constructor that creates an empty wheel.
+     *
+     * @param how_long_does_food_grow : number of rounds the food grows
+     * @param how_many_rounds         : number of the simulation's rounds
+     */
+    FoodRegrowth(int how_long_does_food_grow, int how_many_rounds) {
+        this.how_long_does_food_grow = how_long_does_food_grow;
+        this.how_many_rounds = how_many_rounds;
+        int bucket_count = (int) Math.min(MAX_BUCKET_COUNT,
+                how_long_does_food_grow + 1L);
+        fields = new int[bucket_count][0];
+        rounds = new int[bucket_count][0];
+        sizes = new int[bucket_count];
+    }
+
+    /**
+     * Schedules growing food back on a field it was eaten from.
+     *
+     * @param field : field's index
+     * @param round : number of the round the food was eaten in
+     */
+    void foodEaten(int field, int round) {
+        long due_round = (long) round + how_long_does_food_grow;
+        if (due_round > how_many_rounds) {
+            if (late_count == late_fields.length) {
+                late_fields = Arrays.copyOf(late_fields, 2 * late_count + 4);
+                late_rounds = Arrays.copyOf(late_rounds, 2 * late_count + 4);
+            }
+            late_fields[late_count] = field;
+            late_rounds[late_count++] = round;
+            return;
+        }
+        int due = (int) due_round;
+        int bucket = Math.floorMod(due, fields.length);
+        int size = sizes[bucket];
+        if (size == fields[bucket].length) {
+            fields[bucket] = Arrays.copyOf(fields[bucket], 2 * size + 4);
+            rounds[bucket] = Arrays.copyOf(rounds[bucket], 2 * size + 4);
+        }
+        fields[bucket][size] = field;
+        rounds[bucket][size] = due;
+        sizes[bucket] = size + 1;
+        this.size++;
+    }
+
+    /**
+     * Grows the food that is ready after a round, removing its fields from
+     * the wheel.
+     *
+     * @param round : number of the finished round
+     * @param grow  : grows the food on a field (given its index)
+     * @return number of fields whose food grew back
+     */
+    int growFood(int round, IntConsumer grow) {
+        return growFood(Math.floorMod(round, fields.length), round, grow);
+    }
+
+    /**
+     * Grows the food that is ready after any round up to a given one at
+     * once (when the rounds are skipped), visiting every bucket.
+     *
+     * @param round : number of the last skipped round
+     * @param grow  : grows the food on a field (given its index)
+     * @return number of fields whose food grew back
+     */
+    int growFoodUntil(int round, IntConsumer grow) {
+        int result = 0;
+        for (int bucket = 0; bucket < fields.length; bucket++) {
+            result += growFood(bucket, round, grow);
+        }
+        return result;
+    }
+
+    /**
+     * Grows the food of a bucket's fields that is ready after a round (or
+     * earlier), removing them from the bucket.
+     *
+     * @param bucket : bucket's index
+     * @param round  : number of the finished round
+     * @param grow   : grows the food on a field (given its index)
+     * @return number of fields whose food grew back
+     */
+    private int growFood(int bucket, int round, IntConsumer grow) {
+        int[] bucket_fields = fields[bucket];
+        int[] bucket_rounds = rounds[bucket];
+        int kept = 0;
+        for (int i = 0; i < sizes[bucket]; i++) {
+            if (bucket_rounds[i] <= round) {
+                grow.accept(bucket_fields[i]);
+            } else {
+                bucket_fields[kept] = bucket_fields[i];
+                bucket_rounds[kept++] = bucket_rounds[i];
+            }
+        }
+        int result = sizes[bucket] - kept;
+        sizes[bucket] = kept;
+        size -= result;
+        return result;
+    }
+
+    /**
+     * @return true - if no food grows back until the last round, else false
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Tells how long the food of every growing field has been growing, for
+     * a checkpoint. Fields of a restored checkpoint are scheduled again
+     * with foodEaten(field, round - food_timer).
+     *
+     * @param round : number of the last finished round
+     * @return food timers of growing fields by their indices
+     */
+    Map<Integer, Integer> getFoodTimers(int round) {
+        Map<Integer, Integer> result = new HashMap<>();
+        for (int bucket = 0; bucket < fields.length; bucket++) {
+            for (int i = 0; i < sizes[bucket]; i++) {
+                result.put(fields[bucket][i], round -
+                        (rounds[bucket][i] - how_long_does_food_grow));
+            }
+        }
+        for (int i = 0; i < late_count; i++) {
+            result.put(late_fields[i], round - late_rounds[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,18 @@
+package world;
+
+/**
+ * Interface of objects moving Robs between boards of a simulation
+ * (islands). A board calls it after every round, when the round's stats
+ * are printed.
+ *
+ * @author Adam Al-Hosam
+ */
+public interface Migration {
+    /**
+     * Called after every round of a board.
+     *
+     * @param board        : board, which finished the round
+     * @param round_number : number of the finished round
+     */
+    void afterRound(Board board, int round_number);
+}
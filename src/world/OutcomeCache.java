@@ -0,0 +1,207 @@
+package world;
+
+import inhabitants_of_the_world.CompiledProgram;
+import inhabitants_of_the_world.Program;
+import profiling.Profiler;
+
+/**
+ * Class representing memoized outcomes of executing programs. A memoizable
+ * program (see CompiledProgram.isMemoizable) that a Rob finishes turns it
+ * the same way and moves it to the same neighbour whenever it starts with
+ * the same direction and the same food around its field (see FoodAround),
+ * so the outcome is kept under the key (program, direction, food mask).
+ * An outcome also says how much energy the Rob pays before it moves (and
+ * maybe eats), so the Rob's energy is computed exactly as if the program
+ * was interpreted. A memoizable program can still look at the board after
+ * an "eat" that has moved the Rob - such outcomes depend on more than
+ * the key and are kept as NOT_MEMOIZABLE.
+ * <p>
+ * Only Robs whose energy lets them finish every segment (without food) can
+ * use the cache - otherwise the outcome depends on the exact energy. Robs
+ * that can't use the cache don't count as lookups.
+ * Entries are kept in sets of WAYS entries (chosen by the key's hash) and
+ * a set's entry is evicted with the clock algorithm - the hand skips (and
+ * clears the mark of) entries used since it passed them last time.
+ * A cache is used by one thread.
+ *
+ * @author Adam Al-Hosam
+ */
+public class OutcomeCache {
+    public static final int NOT_MEMOIZABLE = -1;
+    private static final int WAYS = 4;
+
+    // entries of set s are at indices s * WAYS, ..., s * WAYS + WAYS - 1
+    private final Program[] programs;
+    private final int[] contexts;
+    private final int[] outcomes;
+    private final boolean[] used;
+    private final byte[] hands;
+    private final int set_mask;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructor that creates an empty cache.
+     *
+     * @param capacity : maximal number of entries (rounded up to a power of
+     *                 2, at least WAYS)
+     */
+    OutcomeCache(int capacity) {
+        int needed_sets = (capacity + WAYS - 1) / WAYS;
+        int set_count = needed_sets <= 1
+                ? 1
+                : Integer.highestOneBit(needed_sets - 1) << 1;
+        set_mask = set_count - 1;
+        programs = new Program[set_count * WAYS];
+        contexts = new int[set_count * WAYS];
+        outcomes = new int[set_count * WAYS];
+        used = new boolean[set_count * WAYS];
+        hands = new byte[set_count];
+    }
+
+    /**
+     * Checks if a Rob can use the cache.
+     *
+     * @param compiled : Rob's program
+     * @param energy   : Rob's energy on the program's start
+     * @return true if the program is memoizable and the Rob will finish
+     * every segment of it
+     */
+    public static boolean canUse(CompiledProgram compiled, float energy) {
+        return compiled.isMemoizable() &&
+                CompiledProgram.isPaymentExact(energy) &&
+                CompiledProgram.canFinish(energy, compiled.getCost());
+    }
+
+    /**
+     * Returns the outcome of a program, executing it on the key's context
+     * if it isn't in the cache.
+     *
+     * @param program   : Rob's program, which it can use the cache for
+     * @param direction : Rob's direction on the start
+     * @param food_mask : food around the Rob's field (see FoodAround)
+     * @return the outcome (see getDirection, getNeighbour and
+     * getCostBeforeMove) or NOT_MEMOIZABLE
+     */
+    int get(Program program, int direction, int food_mask) {
+        int context = direction << 8 | food_mask;
+        int hash = program.hashCode() * 0x9e3779b9 + context * 0x85ebca6b;
+        int set = (hash ^ hash >>> 16) & set_mask;
+        int first = set * WAYS;
+        for (int i = first; i < first + WAYS; i++) {
+            if (programs[i] == program && contexts[i] == context) {
+                used[i] = true;
+                hits++;
+                return outcomes[i];
+            }
+        }
+
+        misses++;
+        int hand = hands[set];
+        while (used[first + hand]) {
+            used[first + hand] = false;
+            hand = (hand + 1) % WAYS;
+        }
+        int entry = first + hand;
+        hands[set] = (byte) ((hand + 1) % WAYS);
+        programs[entry] = program;
+        contexts[entry] = context;
+        outcomes[entry] = execute(program.getCompiled(), direction,
+                food_mask);
+        return outcomes[entry];
+    }
+
+    /**
+     * Executes a program in a context: sees how it turns a Rob and where it
+     * moves it, without changing anything.
+     *
+     * @param compiled  : memoizable program
+     * @param direction : Rob's direction on the start
+     * @param food_mask : food around the Rob's field
+     * @return the outcome or NOT_MEMOIZABLE
+     */
+    private static int execute(CompiledProgram compiled, int direction,
+                               int food_mask) {
+        int[] code = compiled.getCode();
+        int neighbour = -1;
+        int cost_before_move = 0;
+        int paid = 0;
+        for (int operation : code) {
+            int argument = CompiledProgram.getArgument(operation);
+            switch (CompiledProgram.getOpcode(operation)) {
+                case CompiledProgram.SEGMENT -> {
+                    // paid before the move, if it ends this segment
+                    paid += argument;
+                    if (neighbour < 0) {
+                        cost_before_move = paid - 1;
+                    }
+                }
+                case CompiledProgram.ROTATE ->
+                        direction = (direction + argument) & 3;
+                case CompiledProgram.SNIFF -> {
+                    if (neighbour >= 0) {
+                        return NOT_MEMOIZABLE;
+                    }
+                    int food_direction = FoodAround.firstDirection(food_mask);
+                    if (food_direction >= 0) {
+                        direction = food_direction;
+                    }
+                }
+                case CompiledProgram.GO -> {
+                    if (neighbour >= 0) {
+                        return NOT_MEMOIZABLE;
+                    }
+                    neighbour = direction << 1;
+                }
+                case CompiledProgram.EAT -> {
+                    if (neighbour >= 0) {
+                        return NOT_MEMOIZABLE;
+                    }
+                    neighbour = FoodAround.firstNeighbour(food_mask);
+                }
+            }
+        }
+        if (neighbour < 0) {
+            cost_before_move = compiled.getCost();
+        }
+        return cost_before_move << 6 | (neighbour + 1) << 2 | direction;
+    }
+
+    /**
+     * @param outcome : an outcome
+     * @return Rob's direction after the program
+     */
+    public static int getDirection(int outcome) {
+        return outcome & 3;
+    }
+
+    /**
+     * @param outcome : an outcome
+     * @return number of the neighbour the Rob moves to, -1 if it doesn't
+     * move
+     */
+    public static int getNeighbour(int outcome) {
+        return (outcome >>> 2 & 15) - 1;
+    }
+
+    /**
+     * The Rob pays the rest of the program's cost after it moves.
+     *
+     * @param outcome : an outcome
+     * @return energy the Rob pays before it moves (all if it doesn't)
+     */
+    public static int getCostBeforeMove(int outcome) {
+        return outcome >>> 6;
+    }
+
+    /**
+     * Gives the lookups since the last call to a profiler.
+     *
+     * @param profiler : profiler of the board
+     */
+    void takeCounts(Profiler profiler) {
+        profiler.countOutcomeLookups(hits, misses);
+        hits = 0;
+        misses = 0;
+    }
+}
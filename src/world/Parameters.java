@@ -2,10 +2,14 @@ package world;
 
 import error_handling.Guard;
 import inhabitants_of_the_world.Program;
+import profiling.Profiler;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.SplittableRandom;
 
 /**
  * Class that represents a set of parameters for the simulation.
@@ -28,27 +32,77 @@ public class Parameters {
     private float probability_of_changing_instr;
     private Program starting_program;
     private Program valid_instructions;
+    // extension parameters - optional, they have default values
+    private String engine = "objects";
+    private int tile_size = 0;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    // master seed, if it's not given every run is different
+    private long seed = new SplittableRandom().nextLong();
+    private String stats = "scan";
+    // path of the output file, empty - standard output
+    private String output = "";
+    private boolean output_gzip = false;
+    private String output_policy = "block";
+    private int output_buffer = 1 << 16;
+    // path of the checkpoint file, empty - no checkpoints
+    private String checkpoint = "";
+    private int checkpoint_every = 100;
+    private String board = "dense";
+    // island mode - number of boards and migration between them
+    private int islands = 1;
+    private int migration_every = 50;
+    private float migration_rate = 0.05f;
+    private String migration_topology = "ring";
+    // rounds between profiling summaries, 0 - no summaries
+    private int profile_every = 0;
+    // number of the most common programs printed every round, 0 - none
+    private int top_genomes = 0;
+    // "lines" - rounds without robs are printed like the other ones,
+    // "compressed" - the ones that can't change anything are skipped
+    private String extinct_output = "lines";
+    // robs carrying a program, for which its class is generated, 0 - never
+    private int generate_threshold = 0;
+    // entries of the cache of program outcomes, 0 - outcomes aren't cached
+    private int outcome_cache = 0;
 
     /**
      * Constructor made in a way that enables expanding by new parameters.
      * It reads the data from path_to_file. Determines if the parameters
      * are valid and don't violate the specifications.
+     * Extension parameters are optional and are not counted
+     * in parameter_count.
      *
      * @param path_to_file    : a valid path file with parameters
      * @param parameter_count : number of parameters
      */
     public Parameters(String path_to_file, int parameter_count)
             throws FileNotFoundException {
+        this(readLines(path_to_file), parameter_count);
+    }
+
+    /**
+     * Constructor that reads the parameters from given lines (the same as
+     * the lines of a parameters file).
+     *
+     * @param lines           : lines with parameters
+     * @param parameter_count : number of parameters
+     */
+    public Parameters(List<String> lines, int parameter_count) {
         int counter = 0;
 
-        String input_line;
         String[] data;
-        Scanner sc = new Scanner(new File(path_to_file)).useDelimiter("\n");
-
-        while (counter != parameter_count && sc.hasNext()) {
-            input_line = sc.next();
+        for (String input_line : lines) {
             data = input_line.split(" ", 2);
 
+            if (isExtensionParameter(data[0])) {
+                if (data.length != 2 ||
+                        !setExtensionParameter(data[0], data[1])) {
+                    Guard.endProgramWithAMessage("Not valid " +
+                            "parameters value - " + input_line);
+                }
+                continue;
+            }
+
             // if  starting_program or valid_instructions are empty
             if (data.length == 1) {
                 if (input_line.equals("starting_program ")) {
@@ -69,11 +123,31 @@ public class Parameters {
             counter++;
         }
 
-        if (counter != parameter_count || sc.hasNext()) {
+        if (counter != parameter_count) {
             Guard.endProgramWithAMessage("Not valid " +
                     "parameter count");
         }
+        if (profile_every > 0 && !Profiler.ENABLED) {
+            Guard.endProgramWithAMessage("profile_every needs profiling " +
+                    "to be on (-Drobs.profile=true)");
+        }
+    }
+
+    /**
+     * Reads the lines of a parameters file.
+     *
+     * @param path_to_file : a valid path file with parameters
+     * @return the file's lines
+     */
+    public static List<String> readLines(String path_to_file)
+            throws FileNotFoundException {
+        List<String> result = new ArrayList<>();
+        Scanner sc = new Scanner(new File(path_to_file)).useDelimiter("\n");
+        while (sc.hasNext()) {
+            result.add(sc.next());
+        }
         sc.close();
+        return result;
     }
 
     /**
@@ -86,6 +160,16 @@ public class Parameters {
         this(path_to_file, 15);
     }
 
+    /**
+     * Constructor that reads the parameters of the basic version of
+     * the simulation from given lines.
+     *
+     * @param lines : lines with parameters
+     */
+    public Parameters(List<String> lines) {
+        this(lines, 15);
+    }
+
     /**
      * Determines if each character from valid_instructions given in
      * parameters is allowed. (l,p,i,w,j).
@@ -145,6 +229,21 @@ public class Parameters {
         }
     }
 
+    /**
+     * Checks if a given string can be safely read as long.
+     *
+     * @param str : string to check
+     * @return true - if the string can be safely read as long, else false
+     */
+    private boolean isLong(String str) {
+        try {
+            Long.parseLong(str);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
     /**
      * Method that based on a parameter name sets its value, while checking
      * if it is valid.
@@ -253,6 +352,157 @@ public class Parameters {
         }
     }
 
+    /**
+     * Checks if a given parameter name belongs to the extensions of the
+     * basic version of the simulation.
+     *
+     * @param parameter_name : name of the parameter that is being read
+     * @return true - if it is an extension parameter, else false
+     */
+    private boolean isExtensionParameter(String parameter_name) {
+        switch (parameter_name) {
+            case "engine":
+            case "tile_size":
+            case "threads":
+            case "seed":
+            case "stats":
+            case "output":
+            case "output_gzip":
+            case "output_policy":
+            case "output_buffer":
+            case "checkpoint":
+            case "checkpoint_every":
+            case "board":
+            case "islands":
+            case "migration_every":
+            case "migration_rate":
+            case "migration_topology":
+            case "profile_every":
+            case "top_genomes":
+            case "extinct_output":
+            case "generate_threshold":
+            case "outcome_cache":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Works like setParameter, but for the extension parameters.
+     *
+     * @param parameter_name : name of the parameter that is being read
+     * @param value          : parameter's value as a string
+     * @return true if it was possible to set the parameter
+     */
+    private boolean setExtensionParameter(String parameter_name,
+                                          String value) {
+        switch (parameter_name) {
+            case "engine":
+                engine = value;
+                return value.equals("objects") || value.equals("arrays");
+            case "tile_size":
+                if (isInt(value)) {
+                    tile_size = Integer.parseInt(value);
+                    return tile_size >= 0;
+                }
+                return false;
+            case "threads":
+                if (isInt(value)) {
+                    threads = Integer.parseInt(value);
+                    return threads > 0;
+                }
+                return false;
+            case "seed":
+                if (isLong(value)) {
+                    seed = Long.parseLong(value);
+                    return true;
+                }
+                return false;
+            case "stats":
+                stats = value;
+                return value.equals("scan") || value.equals("incremental");
+            case "output":
+                output = value;
+                return !value.isEmpty();
+            case "output_gzip":
+                output_gzip = value.equals("true");
+                return value.equals("true") || value.equals("false");
+            case "output_policy":
+                output_policy = value;
+                return value.equals("block") || value.equals("drop") ||
+                        value.equals("sample");
+            case "output_buffer":
+                if (isInt(value)) {
+                    output_buffer = Integer.parseInt(value);
+                    return output_buffer > 0 && output_buffer <= 1 << 24;
+                }
+                return false;
+            case "checkpoint":
+                checkpoint = value;
+                return !value.isEmpty();
+            case "checkpoint_every":
+                if (isInt(value)) {
+                    checkpoint_every = Integer.parseInt(value);
+                    return checkpoint_every > 0;
+                }
+                return false;
+            case "board":
+                board = value;
+                return value.equals("dense") || value.equals("chunked");
+            case "islands":
+                if (isInt(value)) {
+                    islands = Integer.parseInt(value);
+                    return islands > 0;
+                }
+                return false;
+            case "migration_every":
+                if (isInt(value)) {
+                    migration_every = Integer.parseInt(value);
+                    return migration_every > 0;
+                }
+                return false;
+            case "migration_rate":
+                if (isFloat(value)) {
+                    migration_rate = Float.parseFloat(value);
+                    return isReadFloatValid(migration_rate);
+                }
+                return false;
+            case "migration_topology":
+                migration_topology = value;
+                return value.equals("ring") || value.equals("all");
+            case "profile_every":
+                if (isInt(value)) {
+                    profile_every = Integer.parseInt(value);
+                    return profile_every >= 0;
+                }
+                return false;
+            case "top_genomes":
+                if (isInt(value)) {
+                    top_genomes = Integer.parseInt(value);
+                    return top_genomes >= 0;
+                }
+                return false;
+            case "extinct_output":
+                extinct_output = value;
+                return value.equals("lines") || value.equals("compressed");
+            case "generate_threshold":
+                if (isInt(value)) {
+                    generate_threshold = Integer.parseInt(value);
+                    return generate_threshold >= 0;
+                }
+                return false;
+            case "outcome_cache":
+                if (isInt(value)) {
+                    outcome_cache = Integer.parseInt(value);
+                    return outcome_cache >= 0;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
     /**
      * @return how_often_to_print
      */
@@ -357,4 +607,168 @@ public class Parameters {
     public Program getValidInstructions() {
         return valid_instructions;
     }
+
+    /**
+     * @return engine - "objects" (a Rob object per rob) or "arrays"
+     * (population stored in parallel arrays)
+     */
+    public String getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return tile_size - minimal length of a tile in the tiled (parallel)
+     * round of the "arrays" engine, 0 if the round isn't tiled
+     */
+    public int getTileSize() {
+        return tile_size;
+    }
+
+    /**
+     * @return threads - number of threads performing a tiled round
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return seed - master seed of the simulation's random streams
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return stats - "scan" (stats collected from every field after each
+     * round) or "incremental" (stats updated as robs change)
+     */
+    public String getStats() {
+        return stats;
+    }
+
+    /**
+     * @return output - path of the file the simulation is written to,
+     * empty if it's written to the standard output
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * @return output_gzip - is the output compressed with gzip
+     */
+    public boolean getOutputGzip() {
+        return output_gzip;
+    }
+
+    /**
+     * @return output_policy - what to do with the output when its writer
+     * falls behind: "block", "drop" or "sample" (see OutputPipeline)
+     */
+    public String getOutputPolicy() {
+        return output_policy;
+    }
+
+    /**
+     * @return output_buffer - number of records waiting for the writer
+     */
+    public int getOutputBuffer() {
+        return output_buffer;
+    }
+
+    /**
+     * @return checkpoint - path of the checkpoint file, empty if
+     * checkpoints aren't written
+     */
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * @return checkpoint_every - how many rounds pass between checkpoints
+     */
+    public int getCheckpointEvery() {
+        return checkpoint_every;
+    }
+
+    /**
+     * @return board - "dense" (every field kept all the time) or "chunked"
+     * (only the parts of the board with robs, see ChunkedCells)
+     */
+    public String getBoard() {
+        return board;
+    }
+
+    /**
+     * @return islands - number of boards simulated at the same time, with
+     * robs migrating between them (1 - a single board)
+     */
+    public int getIslands() {
+        return islands;
+    }
+
+    /**
+     * @return migration_every - how many rounds pass between migrations
+     */
+    public int getMigrationEvery() {
+        return migration_every;
+    }
+
+    /**
+     * @return migration_rate - probability that a rob leaves its island
+     * during a migration
+     */
+    public float getMigrationRate() {
+        return migration_rate;
+    }
+
+    /**
+     * @return migration_topology - "ring" (robs go to the next island) or
+     * "all" (robs go to any other island)
+     */
+    public String getMigrationTopology() {
+        return migration_topology;
+    }
+
+    /**
+     * @return profile_every - how many rounds pass between profiling
+     * summaries (0 - no summaries)
+     */
+    public int getProfileEvery() {
+        return profile_every;
+    }
+
+    /**
+     * @return top_genomes - how many of the most common programs are printed
+     * after every round (0 - genomes aren't tracked)
+     */
+    public int getTopGenomes() {
+        return top_genomes;
+    }
+
+    /**
+     * @return extinct_output - "lines" (every round without robs is printed)
+     * or "compressed" (rounds that can't change anything are printed as one
+     * record)
+     */
+    public String getExtinctOutput() {
+        return extinct_output;
+    }
+
+    /**
+     * @return generate_threshold - number of robs carrying a program, for
+     * which the program's class is generated (0 - programs are always
+     * interpreted)
+     */
+    public int getGenerateThreshold() {
+        return generate_threshold;
+    }
+
+    /**
+     * @return outcome_cache - number of entries of the cache of program
+     * outcomes (0 - outcomes aren't cached)
+     */
+    public int getOutcomeCache() {
+        return outcome_cache;
+    }
 }
@@ -0,0 +1,1084 @@
+package world;
+
+import checkpoint.CheckpointWriter;
+import inhabitants_of_the_world.CompiledProgram;
+import inhabitants_of_the_world.GeneratedProgram;
+import inhabitants_of_the_world.Migrant;
+import inhabitants_of_the_world.Population;
+import inhabitants_of_the_world.Program;
+import inhabitants_of_the_world.ProgramExecutor;
+import inhabitants_of_the_world.ProgramPool;
+import output.OutputPipeline;
+import profiling.Profiler;
+import randomizing.RandomStream;
+import stats.SimulationStats;
+import stats.StatsLog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Class that performs the simulation on a board with Robs stored in
+ * a Population (parallel arrays) instead of Rob and Field objects.
+ * Fields are identified by index and every field's state is kept in Cells
+ * (arrays for the whole board or for its active chunks), which also know
+ * the fields' neighbours. Between rounds the fields with Robs are assigned
+ * to the tiles that will visit them (see rememberRobCounts), so a round
+ * visits only them, row after row.
+ * The rules are the same as in Rob and Field classes - Robs are processed
+ * in the same order, so the statistics are the same as in the object model.
+ * <p>
+ * If tile_size is set, a round is performed in parallel instead: the board
+ * is split into tiles coloured like a checkerboard, so that tiles of the same
+ * colour never touch each other (also through the "connected" edges).
+ * Tiles of one colour (a phase) are processed at the same time, phase
+ * after phase (see RoundTask). A Rob can't get further from its field than its program's
+ * move count, so only Robs that can't leave the halo around their tile
+ * act during the phase - the other ones are deferred to a serial pass
+ * after the last phase. Tiles without Robs on round start are skipped.
+ * Which Robs act where and in what order depends only on the tiles, never
+ * on the number of threads.
+ * <p>
+ * If the stats are incremental, every tile notifies them (or its own
+ * StatsLog, if it's processed in parallel) about births, deaths, changes
+ * of energy and eaten food.
+ *
+ * @author Adam Al-Hosam
+ */
+public class PopulationEngine {
+    private static final int NONE = Population.NONE;
+
+    private final int row_count;
+    private final int column_count;
+    private final Population population;
+    private final ProgramPool programs;
+    private final SimulationStats stats;
+    // fields' rob lists (heads and tails), numbers of robs and food
+    private final Cells cells;
+    // whole board, used when the round isn't tiled and for deferred Robs
+    private final Tile serial_tile;
+    // tiles grouped by phases, empty if the round isn't tiled
+    private final Tile[][] phases;
+    // tiles by their position on the board (tile row * tile_column_count +
+    // tile column) and tile rows and columns of the board's rows and columns
+    private Tile[] tile_grid;
+    private int tile_column_count;
+    private int[] tile_row_of;
+    private int[] tile_column_of;
+    // numbers (positions in the phase) of tiles with Robs on round start,
+    // for every phase, sorted
+    private int[][] active_tiles;
+    private int[] active_tile_count;
+    // assigns a field with Robs on round start to its tile, created once,
+    // so that rounds don't create objects
+    private final IntConsumer assign_field = this::assignField;
+    // Robs with move count below halo can't reach another tile of the phase
+    private int halo;
+    private ForkJoinPool pool;
+    // performs the phases of a tiled round in the pool, reused every round
+    private RoundTask round_task;
+    // attributes of the living Robs copied for the stats, reused
+    private int[] stat_program_lengths = new int[0];
+    private float[] stat_energies = new float[0];
+    private int[] stat_ages = new int[0];
+
+    /**
+     * Constructor that creates an engine working on given fields' state.
+     *
+     * @param board      : board, on which the simulation takes place
+     * @param parameters : simulation parameters
+     * @param cells      : state of the board's fields
+     */
+    PopulationEngine(Board board, Parameters parameters, Cells cells) {
+        row_count = board.getRowCount();
+        column_count = board.getColumnCount();
+        programs = board.getProgramPool();
+        stats = board.getStats();
+        this.cells = cells;
+        population = new Population(1024);
+
+        serial_tile = new Tile(0, row_count - 1, 0, column_count - 1, 0,
+                false, stats);
+        serial_tile.executor = new TileExecutor(serial_tile);
+        serial_tile.outcomes = createOutcomeCache(parameters);
+        phases = createPhases(parameters);
+        if (phases.length > 0) {
+            pool = new ForkJoinPool(parameters.getThreads());
+            round_task = new RoundTask();
+        }
+    }
+
+    /**
+     * Creates a tile's cache of program outcomes, if parameters say so.
+     * Every tile has its own cache, so that tiles processed at the same
+     * time don't share it.
+     *
+     * @param parameters : simulation parameters
+     * @return the cache, null if outcomes aren't memoized
+     */
+    private static OutcomeCache createOutcomeCache(Parameters parameters) {
+        return parameters.getOutcomeCache() > 0
+                ? new OutcomeCache(parameters.getOutcomeCache())
+                : null;
+    }
+
+    /**
+     * Splits rows (or columns) into tile_count almost equal parts.
+     *
+     * @param count      : number of rows (or columns)
+     * @param tile_count : number of parts
+     * @return beginnings of the parts and count as the last element
+     */
+    private static int[] split(int count, int tile_count) {
+        int[] bounds = new int[tile_count + 1];
+        for (int i = 0; i <= tile_count; i++) {
+            bounds[i] = (int) ((long) i * count / tile_count);
+        }
+        return bounds;
+    }
+
+    /**
+     * Checkerboard colour of a tile in one dimension. If the number of tiles
+     * is odd, the last tile touches the first one through the board's edge,
+     * so it needs a third colour.
+     *
+     * @param i          : tile's number in the dimension
+     * @param tile_count : number of tiles in the dimension
+     * @return tile's colour
+     */
+    private static int colour(int i, int tile_count) {
+        if (tile_count > 1 && tile_count % 2 == 1 && i == tile_count - 1) {
+            return 2;
+        }
+        return i % 2;
+    }
+
+    /**
+     * @param tile_count : number of tiles in a dimension
+     * @return number of colours used in the dimension
+     */
+    private static int colourCount(int tile_count) {
+        if (tile_count == 1) {
+            return 1;
+        }
+        return tile_count % 2 == 0 ? 2 : 3;
+    }
+
+    /**
+     * Splits the board into tiles at least tile_size fields long and groups
+     * them by colour. Sets halo to half of the shortest tile length, counted
+     * in the dimensions that have more than one tile, and remembers which
+     * tile every field belongs to.
+     *
+     * @param parameters : simulation parameters (tile_size is the minimal
+     *                   length of a tile, 0 if the round isn't tiled)
+     * @return tiles grouped by phases
+     */
+    private Tile[][] createPhases(Parameters parameters) {
+        int tile_size = parameters.getTileSize();
+        if (tile_size == 0) {
+            return new Tile[0][];
+        }
+        int tile_rows = Math.max(1, row_count / tile_size);
+        int tile_columns = Math.max(1, column_count / tile_size);
+        if (tile_rows == 1 && tile_columns == 1) {
+            return new Tile[0][];
+        }
+
+        halo = Integer.MAX_VALUE;
+        if (tile_rows > 1) {
+            halo = Math.min(halo, row_count / tile_rows / 2);
+        }
+        if (tile_columns > 1) {
+            halo = Math.min(halo, column_count / tile_columns / 2);
+        }
+
+        int[] row_bounds = split(row_count, tile_rows);
+        int[] column_bounds = split(column_count, tile_columns);
+        tile_row_of = tileOf(row_bounds);
+        tile_column_of = tileOf(column_bounds);
+        tile_column_count = tile_columns;
+        tile_grid = new Tile[tile_rows * tile_columns];
+        int column_colours = colourCount(tile_columns);
+        int phase_count = colourCount(tile_rows) * column_colours;
+        List<List<Tile>> tiles = new ArrayList<>();
+        for (int phase = 0; phase < phase_count; phase++) {
+            tiles.add(new ArrayList<>());
+        }
+        for (int i = 0; i < tile_rows; i++) {
+            for (int j = 0; j < tile_columns; j++) {
+                int phase = colour(i, tile_rows) * column_colours +
+                        colour(j, tile_columns);
+                Tile tile = new Tile(row_bounds[i], row_bounds[i + 1] - 1,
+                        column_bounds[j], column_bounds[j + 1] - 1, phase,
+                        true, stats.needsEvents() ? new StatsLog() : stats);
+                tile.executor = new TileExecutor(tile);
+                tile.task = new TileTask(tile);
+                tile.outcomes = createOutcomeCache(parameters);
+                tile.number = tiles.get(phase).size();
+                tiles.get(phase).add(tile);
+                tile_grid[i * tile_columns + j] = tile;
+            }
+        }
+
+        Tile[][] result = new Tile[phase_count][];
+        active_tiles = new int[phase_count][];
+        active_tile_count = new int[phase_count];
+        for (int phase = 0; phase < phase_count; phase++) {
+            result[phase] = tiles.get(phase).toArray(new Tile[0]);
+            active_tiles[phase] = new int[result[phase].length];
+        }
+        return result;
+    }
+
+    /**
+     * @param bounds : bounds of the tiles in a dimension (see split)
+     * @return number of the tile of every row (or column)
+     */
+    private static int[] tileOf(int[] bounds) {
+        int[] result = new int[bounds[bounds.length - 1]];
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            Arrays.fill(result, bounds[i], bounds[i + 1], i);
+        }
+        return result;
+    }
+
+    /**
+     * @param phase : phase's number
+     * @param i     : position amongst the phase's tiles with Robs on round
+     *              start
+     * @return the i-th tile of the phase with Robs on round start
+     */
+    private Tile getActiveTile(int phase, int i) {
+        return phases[phase][active_tiles[phase][i]];
+    }
+
+    /**
+     * Places a given Rob in the beginning of a field's rob list. A field
+     * that becomes occupied is remembered by the tile (see rememberRobCounts).
+     *
+     * @param field : field's index
+     * @param slot  : Rob's slot
+     * @param tile  : tile, which the Rob acts on
+     */
+    private void placeNextRob(int field, int slot, Tile tile) {
+        int head = cells.getHead(field);
+        population.linkAsFirst(slot, head);
+        if (head == NONE) {
+            cells.setTail(field, slot);
+            tile.fieldOccupied(field);
+        }
+        cells.setHead(field, slot);
+        cells.changeRobCount(field, 1);
+    }
+
+    /**
+     * Removes a given Rob from a field's rob list.
+     *
+     * @param field : field's index
+     * @param slot  : Rob's slot
+     */
+    private void releaseARob(int field, int slot) {
+        if (cells.getHead(field) == slot) {
+            cells.setHead(field, population.getNext(slot));
+        }
+        if (cells.getTail(field) == slot) {
+            cells.setTail(field, population.getPrevious(slot));
+        }
+        population.unlink(slot);
+        cells.changeRobCount(field, -1);
+    }
+
+    /**
+     * Randomly samples as many fields, as many robs there should exist in
+     * the beginning of the simulation and places a new Rob on each of them.
+     * Each Rob gets its own random stream split from the master one.
+     *
+     * @param parameters : simulation parameters
+     * @param random     : master random stream of the simulation
+     */
+    public void createAndPlaceRobs(Parameters parameters,
+                                   RandomStream random) {
+        int row, column, field, slot;
+        for (int i = 0; i < parameters.getHowManyRobsOnStart(); i++) {
+            row = random.nextInt(row_count);
+            column = random.nextInt(column_count);
+
+            field = cells.getIndex(row, column);
+
+            RandomStream rob_random = random.split();
+            Program program = programs.acquire(parameters
+                    .getStartingProgram().mutation(parameters, rob_random));
+            slot = population.add(program, parameters.getStartingEnergy(),
+                    rob_random.nextInt(4), field);
+            population.storeRandom(slot, rob_random);
+            placeNextRob(field, slot, serial_tile);
+            stats.robBorn(program, parameters.getStartingEnergy(), 0);
+        }
+    }
+
+    /**
+     * Prepares every field before the next round and updates given stats
+     * by the Robs - their attributes are copied to arrays first, so that
+     * the stats reduce them a whole array at a time. Incremental stats are
+     * already up to date, so then only the numbers of Robs on round start
+     * are set.
+     *
+     * @param stats : stats to update
+     */
+    public void collectStatsAndUpdateFields(SimulationStats stats) {
+        rememberRobCounts();
+        if (stats.isIncremental()) {
+            return;
+        }
+        stats.countFoodFields(cells.countFood());
+        if (stat_energies.length < population.size()) {
+            int capacity = Math.max(population.size(),
+                    2 * stat_energies.length);
+            stat_program_lengths = new int[capacity];
+            stat_energies = new float[capacity];
+            stat_ages = new int[capacity];
+        }
+        int count = population.copyLiving(stat_program_lengths,
+                stat_energies, stat_ages);
+        stats.updateByRobs(stat_program_lengths, stat_energies, stat_ages,
+                count);
+    }
+
+    /**
+     * Remembers how many Robs are on every field, so that only they act
+     * in the next round. The cells learn about the fields that became
+     * occupied on the tiles first. Then the fields with Robs are assigned
+     * to their tiles (or to the whole board's tile), row after row, so that
+     * every tile visits only its own fields and tiles without them aren't
+     * processed at all.
+     */
+    public void rememberRobCounts() {
+        cells.fieldsOccupied(serial_tile.occupied, serial_tile.occupied_count);
+        serial_tile.occupied_count = 0;
+        serial_tile.clearFields();
+        for (int phase = 0; phase < phases.length; phase++) {
+            for (int i = 0; i < active_tile_count[phase]; i++) {
+                Tile tile = getActiveTile(phase, i);
+                cells.fieldsOccupied(tile.occupied, tile.occupied_count);
+                tile.occupied_count = 0;
+                tile.clearFields();
+            }
+            active_tile_count[phase] = 0;
+        }
+        cells.rememberRobCounts();
+        cells.forEachActiveField(assign_field);
+        for (int phase = 0; phase < phases.length; phase++) {
+            Arrays.sort(active_tiles[phase], 0, active_tile_count[phase]);
+        }
+    }
+
+    /**
+     * Assigns a field with Robs on round start to the tile that visits it
+     * in the next round.
+     *
+     * @param field : field's index
+     */
+    private void assignField(int field) {
+        Tile tile = serial_tile;
+        if (phases.length > 0) {
+            tile = tile_grid[tile_row_of[cells.getRow(field)] *
+                    tile_column_count +
+                    tile_column_of[cells.getColumn(field)]];
+            if (tile.field_count == 0) {
+                active_tiles[tile.phase][active_tile_count[tile.phase]++] =
+                        tile.number;
+            }
+        }
+        tile.addField(field, cells.getRobCountOnRoundStart(field));
+    }
+
+    /**
+     * Creates a Rob with given attributes (read from a checkpoint) in
+     * the beginning of a field's rob list.
+     *
+     * @param field     : field's index
+     * @param program   : Rob's program
+     * @param direction : Rob's direction
+     * @param energy    : Rob's energy
+     * @param age       : Rob's age
+     * @param random    : Rob's random stream
+     */
+    public void restoreRob(int field, Program program, int direction,
+                           float energy, int age, RandomStream random) {
+        int slot = population.add(programs.acquire(program), energy,
+                direction, field);
+        population.setAge(slot, age);
+        population.storeRandom(slot, random);
+        placeNextRob(field, slot, serial_tile);
+        stats.robBorn(program, energy, age);
+    }
+
+    /**
+     * Puts the Robs from a field's list in a checkpoint, from the last one
+     * (like Field.writeRobs).
+     *
+     * @param field      : field's index
+     * @param checkpoint : checkpoint being written
+     */
+    public void writeRobs(int field, CheckpointWriter checkpoint) {
+        checkpoint.putRobCount(cells.getRobCount(field));
+        for (int slot = cells.getTail(field); slot != NONE;
+             slot = population.getPrevious(slot)) {
+            population.loadRandom(slot, serial_tile.random);
+            checkpoint.putRob(population.getProgram(slot),
+                    population.getDirection(slot), population.getAge(slot),
+                    population.getEnergy(slot),
+                    serial_tile.random.getSeed(),
+                    serial_tile.random.getGamma());
+        }
+    }
+
+    /**
+     * Removes every Rob with a given probability, field after field,
+     * and adds it to the migrants.
+     *
+     * @param fraction : probability that a Rob leaves
+     * @param random   : random stream deciding which Robs leave
+     * @param migrants : list of migrants, the Robs are added to it
+     */
+    public void takeEmigrants(float fraction, RandomStream random,
+                              List<Migrant> migrants) {
+        for (int row = 0; row < row_count; row++) {
+            for (int column = cells.nextActiveColumn(row, 0);
+                 column < column_count;
+                 column = cells.nextActiveColumn(row, column + 1)) {
+                int field = cells.getIndex(row, column);
+                int slot = cells.getHead(field);
+                while (slot != NONE) {
+                    int next = population.getNext(slot);
+                    if (random.sampleBooleanWithProbability(fraction)) {
+                        population.loadRandom(slot, serial_tile.random);
+                        migrants.add(new Migrant(population.getProgram(slot),
+                                population.getDirection(slot),
+                                population.getEnergy(slot),
+                                population.getAge(slot),
+                                serial_tile.random));
+                        releaseARob(field, slot);
+                        stats.robDied(population.getProgram(slot),
+                                population.getEnergy(slot),
+                                population.getAge(slot));
+                        die(slot);
+                    }
+                    slot = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Performs a round's actions on every field. Like in
+     * Field.performARound, Robs are taken from the end of the list and
+     * the ones that stay on the field are put back in the beginning.
+     *
+     * @param parameters : simulation parameters
+     */
+    public void wykonajTure(Parameters parameters) {
+        if (phases.length == 0) {
+            performARoundOnTile(serial_tile, parameters);
+            return;
+        }
+
+        for (int phase = 0; phase < phases.length; phase++) {
+            for (int i = 0; i < active_tile_count[phase]; i++) {
+                Tile tile = getActiveTile(phase, i);
+                tile.prepare();
+                population.takeFreeSlots(tile.reserved, tile.reserved_count);
+            }
+        }
+        round_task.parameters = parameters;
+        round_task.reinitialize();
+        pool.invoke(round_task);
+
+        // everything that was postponed is done in the order of tiles
+        for (int phase = 0; phase < phases.length; phase++) {
+            for (int i = 0; i < active_tile_count[phase]; i++) {
+                Tile tile = getActiveTile(phase, i);
+                population.returnFreeSlots(tile.reserved,
+                        tile.reserved_count);
+                for (int j = 0; j < tile.dead_count; j++) {
+                    die(tile.dead[j]);
+                }
+                population.changeSize(tile.births);
+                if (tile.stats instanceof StatsLog log) {
+                    log.replayTo(stats);
+                }
+            }
+        }
+        for (int phase = 0; phase < phases.length; phase++) {
+            for (int i = 0; i < active_tile_count[phase]; i++) {
+                Tile tile = getActiveTile(phase, i);
+                for (int j = 0; j < tile.deferred_count; j++) {
+                    int slot = tile.deferred[j];
+                    performATurn(slot, population.getField(slot),
+                            serial_tile, parameters);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives the fields whose food was eaten on the tiles during the last
+     * round to the board, so that the food grows back.
+     *
+     * @param board : simulation board
+     */
+    void takeEatenFood(Board board) {
+        board.foodEaten(serial_tile.eaten, serial_tile.eaten_count);
+        serial_tile.eaten_count = 0;
+        for (int phase = 0; phase < phases.length; phase++) {
+            for (int i = 0; i < active_tile_count[phase]; i++) {
+                Tile tile = getActiveTile(phase, i);
+                board.foodEaten(tile.eaten, tile.eaten_count);
+                tile.eaten_count = 0;
+            }
+        }
+    }
+
+    /**
+     * @return number of living Robs
+     */
+    int getRobCount() {
+        return population.size();
+    }
+
+    /**
+     * Gives the instructions counted on the tiles during the last round
+     * (and the memory allocated by the threads processing them) to
+     * a profiler.
+     *
+     * @param profiler : profiler of the board
+     */
+    public void takeProfile(Profiler profiler) {
+        profiler.takeInstructionCounts(serial_tile.instruction_counts);
+        if (serial_tile.outcomes != null) {
+            serial_tile.outcomes.takeCounts(profiler);
+        }
+        for (int phase = 0; phase < phases.length; phase++) {
+            for (int i = 0; i < active_tile_count[phase]; i++) {
+                Tile tile = getActiveTile(phase, i);
+                profiler.takeInstructionCounts(tile.instruction_counts);
+                if (tile.outcomes != null) {
+                    tile.outcomes.takeCounts(profiler);
+                }
+                profiler.addAllocation(tile.allocated);
+                tile.allocated = 0;
+            }
+        }
+    }
+
+    /**
+     * Performs a round's actions on every field of a tile with Robs on
+     * round start (see rememberRobCounts), row after row.
+     *
+     * @param tile       : tile to process
+     * @param parameters : simulation parameters
+     */
+    private void performARoundOnTile(Tile tile, Parameters parameters) {
+        long allocated = Profiler.ENABLED && tile.is_parallel
+                ? Profiler.allocatedBytes()
+                : 0;
+        for (int i = 0; i < tile.field_count; i++) {
+            int field = tile.fields[i];
+            int robs_on_start = cells.getRobCountOnRoundStart(field);
+            for (int j = 0; j < robs_on_start; j++) {
+                int slot = cells.getTail(field);
+                releaseARob(field, slot);
+                if (tile.is_parallel && population.getProgram(slot)
+                        .getMoveCount() >= halo) {
+                    tile.deferred[tile.deferred_count++] = slot;
+                } else {
+                    performATurn(slot, field, tile, parameters);
+                }
+            }
+        }
+        if (Profiler.ENABLED && tile.is_parallel) {
+            tile.allocated += Profiler.allocatedBytes() - allocated;
+        }
+    }
+
+    /**
+     * Performs a Rob's turn after it was taken from its field's list.
+     * If the Rob doesn't survive, it dies. If it stays on its field, it is
+     * put back in the beginning of the list.
+     *
+     * @param slot       : Rob's slot
+     * @param field      : index of the field the Rob started on
+     * @param tile       : tile, which the Rob acts on
+     * @param parameters : simulation parameters
+     */
+    private void performATurn(int slot, int field, Tile tile,
+                              Parameters parameters) {
+        if (!tryToSurviveARound(slot, tile, parameters)) {
+            if (population.isLinked(slot)) {
+                releaseARob(population.getField(slot), slot);
+            }
+            if (tile.is_parallel) {
+                tile.dead[tile.dead_count++] = slot;
+            } else {
+                die(slot);
+            }
+        } else if (!population.isLinked(slot) &&
+                population.getField(slot) == field) {
+            placeNextRob(field, slot, tile);
+        }
+    }
+
+    /**
+     * Removes a dead Rob (already released from its field) from
+     * the population and gives its program back to the pool.
+     *
+     * @param slot : dead Rob's slot
+     */
+    private void die(int slot) {
+        programs.release(population.getProgram(slot));
+        population.remove(slot);
+    }
+
+    /**
+     * Simulates trying to survive one round by a Rob - the same way as
+     * Rob.tryToSurviveARound (also notifying the tile's stats).
+     *
+     * @param slot       : Rob's slot
+     * @param tile       : tile, which the Rob acts on
+     * @param parameters : simulation parameters
+     * @return true if the Rob survived, else false
+     */
+    private boolean tryToSurviveARound(int slot, Tile tile,
+                                       Parameters parameters) {
+        float energy = population.getEnergy(slot);
+        Program program = population.getProgram(slot);
+        if (energy >= parameters.getDuplicationLimit()) {
+            population.loadRandom(slot, tile.random);
+            boolean should_duplicate = tile.random
+                    .sampleBooleanWithProbability(parameters
+                            .getDuplicationProbability());
+            if (should_duplicate) {
+                duplicate(slot, energy, tile, parameters);
+            }
+            population.storeRandom(slot, tile.random);
+        }
+        executeTheProgram(slot, tile, parameters);
+        population.increaseAge(slot);
+        if (population.getEnergy(slot) < 0) {
+            tile.stats.robDied(program, energy,
+                    population.getAge(slot));
+            return false;
+        }
+        tile.stats.robChanged(energy, population.getEnergy(slot));
+        return true;
+    }
+
+    /**
+     * Creates a Rob's descendant on the Rob's field and decreases the Rob's
+     * energy - the same way as Rob.duplicate. The Rob's random stream has
+     * to be loaded to tile.random.
+     *
+     * @param slot       : Rob's slot
+     * @param energy     : Rob's energy
+     * @param tile       : tile, which the Rob acts on
+     * @param parameters : simulation parameters
+     */
+    private void duplicate(int slot, float energy, Tile tile,
+                           Parameters parameters) {
+        tile.random.splitInto(tile.child_random);
+        int direction = population.getDirection(slot);
+        Program parent_program = population.getProgram(slot);
+        Program program = parent_program.mutateInto(parameters,
+                tile.child_random, tile.program_buffer)
+                ? programs.acquire(tile.program_buffer)
+                : programs.acquire(parent_program);
+        float child_energy = parameters.getParentsEnergyFraction() *
+                energy;
+        int child_direction = direction > 1
+                ? direction - 2
+                : direction + 2;
+        int field = population.getField(slot);
+        int child;
+        if (tile.is_parallel) {
+            child = tile.reserved[--tile.reserved_count];
+            population.initialize(child, program, child_energy,
+                    child_direction, field);
+            tile.births++;
+        } else {
+            child = population.add(program, child_energy,
+                    child_direction, field);
+        }
+        population.storeRandom(child, tile.child_random);
+        population.setEnergy(slot,
+                energy * (1 - parameters.getParentsEnergyFraction()));
+        placeNextRob(field, child, tile);
+        tile.stats.robBorn(program, child_energy, 0);
+    }
+
+    /**
+     * Executes the whole Rob's program segment after segment - the same way
+     * as Rob.executeTheProgram. If at any moment the energy should fall
+     * below 0, then the Rob's energy is set to -1.
+     *
+     * @param slot       : Rob's slot
+     * @param tile       : tile, which the Rob acts on
+     * @param parameters : simulation parameters
+     */
+    private void executeTheProgram(int slot, Tile tile,
+                                   Parameters parameters) {
+        Program program = population.getProgram(slot);
+        if (tile.outcomes == null ||
+                !performMemoizedProgram(slot, program, tile, parameters)) {
+            GeneratedProgram generated = program.getGenerated();
+            if (generated != null) {
+                tile.executor.execute(slot, generated, parameters);
+            } else {
+                interpretTheProgram(slot, tile, parameters);
+            }
+        }
+
+        float energy = population.getEnergy(slot);
+        if (energy < parameters.getRoundCost()) {
+            population.setEnergy(slot, -1);
+        } else {
+            population.setEnergy(slot, energy - parameters.getRoundCost());
+        }
+    }
+
+    /**
+     * Performs a Rob's program using the outcome of its execution from
+     * the tile's cache (see OutcomeCache), without the round's cost - the
+     * same way as Rob.performMemoizedProgram.
+     *
+     * @param slot       : Rob's slot
+     * @param program    : Rob's program
+     * @param tile       : tile, which the Rob acts on
+     * @param parameters : simulation parameters
+     * @return false if the outcome can't be memoized - the Rob isn't
+     * changed then
+     */
+    private boolean performMemoizedProgram(int slot, Program program,
+                                           Tile tile, Parameters parameters) {
+        CompiledProgram compiled = program.getCompiled();
+        float energy = population.getEnergy(slot);
+        if (!OutcomeCache.canUse(compiled, energy)) {
+            return false;
+        }
+        int field = population.getField(slot);
+        int outcome = tile.outcomes.get(program,
+                population.getDirection(slot), cells.getFoodAround(field));
+        if (outcome == OutcomeCache.NOT_MEMOIZABLE) {
+            return false;
+        }
+
+        int cost_before_move = OutcomeCache.getCostBeforeMove(outcome);
+        population.setEnergy(slot,
+                CompiledProgram.pay(energy, cost_before_move));
+        int neighbour = OutcomeCache.getNeighbour(outcome);
+        if (neighbour >= 0) {
+            wejdzNaPole(slot, cells.getNeighbour(field, neighbour), tile,
+                    parameters);
+        }
+        population.setDirection(slot, OutcomeCache.getDirection(outcome));
+        population.setEnergy(slot, CompiledProgram.pay(
+                population.getEnergy(slot),
+                compiled.getCost() - cost_before_move));
+        if (Profiler.ENABLED) {
+            Profiler.countProgram(tile.instruction_counts, compiled);
+        }
+        return true;
+    }
+
+    /**
+     * Interprets the Rob's compiled program, without the round's cost.
+     *
+     * @param slot       : Rob's slot
+     * @param tile       : tile, which the Rob acts on
+     * @param parameters : simulation parameters
+     */
+    private void interpretTheProgram(int slot, Tile tile,
+                                     Parameters parameters) {
+        int[] code = population.getProgram(slot).getCompiled().getCode();
+        int pc = 0;
+        int segment = 0;
+        while (pc < code.length) {
+            if (!startSegment(slot,
+                    CompiledProgram.getArgument(code[pc++]))) {
+                break;
+            }
+            while (pc < code.length && CompiledProgram.getOpcode(code[pc])
+                    != CompiledProgram.SEGMENT) {
+                performOperation(slot, code[pc++], tile, parameters);
+            }
+            endSegment(slot, tile, segment++);
+        }
+    }
+
+    /**
+     * Starts a segment of a Rob's program (see
+     * ProgramExecutor.startSegment).
+     *
+     * @param slot : Rob's slot
+     * @param cost : segment's cost
+     * @return false if the Rob can't finish the segment
+     */
+    private boolean startSegment(int slot, int cost) {
+        float energy = population.getEnergy(slot);
+        if (!CompiledProgram.canFinish(energy, cost)) {
+            population.setEnergy(slot, -1);
+            return false;
+        }
+        population.setEnergy(slot,
+                CompiledProgram.payInAdvance(energy, cost));
+        return true;
+    }
+
+    /**
+     * Ends a segment of a Rob's program (see ProgramExecutor.endSegment).
+     *
+     * @param slot    : Rob's slot
+     * @param tile    : tile, which the Rob acts on
+     * @param segment : segment's number
+     */
+    private void endSegment(int slot, Tile tile, int segment) {
+        population.setEnergy(slot, population.getEnergy(slot) - 1);
+        if (Profiler.ENABLED) {
+            Profiler.countSegment(tile.instruction_counts,
+                    population.getProgram(slot).getCompiled(), segment);
+        }
+    }
+
+    /**
+     * Performs an operation of a compiled program.
+     *
+     * @param slot       : Rob's slot
+     * @param operation  : operation to perform
+     * @param tile       : tile, which the Rob acts on
+     * @param parameters : simulation parameters
+     */
+    private void performOperation(int slot, int operation, Tile tile,
+                                  Parameters parameters) {
+        int field = population.getField(slot);
+        switch (CompiledProgram.getOpcode(operation)) {
+            case CompiledProgram.ROTATE -> population.setDirection(slot,
+                    (population.getDirection(slot) +
+                            CompiledProgram.getArgument(operation)) & 3);
+            case CompiledProgram.SNIFF -> performSniffInstruction(slot, field);
+            case CompiledProgram.GO -> wejdzNaPole(slot,
+                    cells.getNeighbourInDirection(field,
+                            population.getDirection(slot)), tile,
+                    parameters);
+            case CompiledProgram.EAT ->
+                    performEatInstruction(slot, field, tile, parameters);
+        }
+    }
+
+    /**
+     * Places Rob in the direction of the food if there is any amongst its
+     * neighbours (without diagonals), the first one clockwise from the one
+     * above (see FoodAround).
+     *
+     * @param slot  : Rob's slot
+     * @param field : index of the Rob's field
+     */
+    private void performSniffInstruction(int slot, int field) {
+        int direction =
+                FoodAround.firstDirection(cells.getFoodAround(field));
+        if (direction >= 0) {
+            population.setDirection(slot, direction);
+        }
+    }
+
+    /**
+     * Searches for food looking around the neighbours clockwise starting
+     * from the one above and goes to the first field with food (see
+     * FoodAround).
+     *
+     * @param slot       : Rob's slot
+     * @param field      : index of the Rob's field
+     * @param tile       : tile, which the Rob acts on
+     * @param parameters : simulation parameters
+     */
+    private void performEatInstruction(int slot, int field, Tile tile,
+                                       Parameters parameters) {
+        int number = FoodAround.firstNeighbour(cells.getFoodAround(field));
+        if (number >= 0) {
+            wejdzNaPole(slot, cells.getNeighbour(field, number), tile,
+                    parameters);
+        }
+    }
+
+    /**
+     * Performs each action needed when Rob is going on some field.
+     *
+     * @param slot       : Rob's slot
+     * @param new_field  : index of the field that the Rob is getting on
+     * @param tile       : tile, which the Rob acts on
+     * @param parameters : simulation parameters
+     */
+    private void wejdzNaPole(int slot, int new_field, Tile tile,
+                             Parameters parameters) {
+        if (population.isLinked(slot)) {
+            releaseARob(population.getField(slot), slot);
+        }
+        placeNextRob(new_field, slot, tile);
+        population.setField(slot, new_field);
+
+        if (cells.hasFood(new_field)) {
+            float energy = population.getEnergy(slot);
+            if (Float.MAX_VALUE - energy < 8) {
+                population.setEnergy(slot, Float.MAX_VALUE);
+            } else {
+                population.setEnergy(slot,
+                        energy + parameters.getHowMuchEnergyFoodGives());
+            }
+            cells.setFood(new_field, false);
+            tile.foodEaten(new_field);
+            tile.stats.foodEaten();
+        }
+    }
+
+    /**
+     * Prints out states of all Robs in the simulation, field after field.
+     *
+     * @param output : simulation's output
+     */
+    public void printRobsStates(OutputPipeline output) {
+        for (int row = 0; row < row_count; row++) {
+            for (int column = cells.nextActiveColumn(row, 0);
+                 column < column_count;
+                 column = cells.nextActiveColumn(row, column + 1)) {
+                for (int slot = cells.getHead(cells.getIndex(row, column));
+                     slot != NONE; slot = population.getNext(slot)) {
+                    output.printRob(population.getDirection(slot),
+                            population.getProgram(slot),
+                            population.getEnergy(slot),
+                            population.getAge(slot), row, column);
+                }
+            }
+        }
+    }
+
+    /**
+     * Task performing the phases of a tiled round one after another, in
+     * the pool - the tiles of a phase with Robs on round start are processed
+     * at the same time by their own tasks, the thread performing this task
+     * takes part in it. The tasks are reused every round (see
+     * ForkJoinTask.reinitialize), so rounds don't create them.
+     */
+    final class RoundTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private Parameters parameters;
+        // tasks of a phase's tiles, reused
+        private final List<TileTask> tasks = new ArrayList<>();
+
+        @Override
+        protected void compute() {
+            for (int phase = 0; phase < phases.length; phase++) {
+                tasks.clear();
+                for (int i = 0; i < active_tile_count[phase]; i++) {
+                    TileTask task = getActiveTile(phase, i).task;
+                    task.reinitialize();
+                    tasks.add(task);
+                }
+                invokeAll(tasks);
+            }
+        }
+    }
+
+    /**
+     * Task performing a round's actions on a tile (see RoundTask).
+     */
+    final class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Tile tile;
+
+        /**
+         * Constructor that creates a task processing a given tile.
+         *
+         * @param tile : tile to process
+         */
+        TileTask(Tile tile) {
+            this.tile = tile;
+        }
+
+        @Override
+        protected void compute() {
+            performARoundOnTile(tile, round_task.parameters);
+        }
+    }
+
+    /**
+     * Class performing generated programs of Robs acting on a tile, one Rob
+     * at a time.
+     */
+    final class TileExecutor implements ProgramExecutor {
+        private final Tile tile;
+        private Parameters parameters;
+        private int slot;
+
+        /**
+         * Constructor that creates an executor for a given tile.
+         *
+         * @param tile : tile, which the Robs act on
+         */
+        TileExecutor(Tile tile) {
+            this.tile = tile;
+        }
+
+        /**
+         * Executes a Rob's generated program, without the round's cost.
+         *
+         * @param slot       : Rob's slot
+         * @param program    : the Rob's generated program
+         * @param parameters : simulation parameters
+         */
+        void execute(int slot, GeneratedProgram program,
+                     Parameters parameters) {
+            this.slot = slot;
+            this.parameters = parameters;
+            program.execute(this);
+        }
+
+        @Override
+        public boolean startSegment(int cost) {
+            return PopulationEngine.this.startSegment(slot, cost);
+        }
+
+        @Override
+        public void rotate(int turns) {
+            population.setDirection(slot,
+                    (population.getDirection(slot) + turns) & 3);
+        }
+
+        @Override
+        public void sniff() {
+            performSniffInstruction(slot, population.getField(slot));
+        }
+
+        @Override
+        public void go() {
+            int field = population.getField(slot);
+            wejdzNaPole(slot, cells.getNeighbourInDirection(field,
+                    population.getDirection(slot)), tile, parameters);
+        }
+
+        @Override
+        public void eat() {
+            performEatInstruction(slot, population.getField(slot), tile,
+                    parameters);
+        }
+
+        @Override
+        public void endSegment(int segment) {
+            PopulationEngine.this.endSegment(slot, tile, segment);
+        }
+    }
+}
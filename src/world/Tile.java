@@ -0,0 +1,158 @@
+package world;
+
+import inhabitants_of_the_world.ProgramBuffer;
+import profiling.Profiler;
+import randomizing.RandomStream;
+import stats.StatsListener;
+
+import java.util.Arrays;
+
+/**
+ * Class representing a rectangular part of the board processed by one
+ * thread during a round of PopulationEngine. Besides the bounds and
+ * the fields with Robs on round start (assigned by the engine between
+ * rounds) it keeps everything a thread needs to perform the round without
+ * touching shared state: streams used in place of the acting Rob's (and its
+ * child's) random stream, slots reserved for births, Robs that died and
+ * Robs whose turn has to wait for the serial part of the round. Events for incremental stats
+ * are noted in a StatsLog and passed on after the round.
+ * The serial (not tiled) round uses one tile covering the whole board
+ * with no reserved slots - births and deaths go straight to the
+ * population then.
+ *
+ * @author Adam Al-Hosam
+ */
+class Tile {
+    final int first_row;
+    final int last_row;
+    final int first_column;
+    final int last_column;
+    // number of the phase in which the tile is processed
+    final int phase;
+    // position of the tile in its phase, set by the engine
+    int number;
+    final RandomStream random;
+    final RandomStream child_random;
+    final boolean is_parallel;
+    // notified about births, deaths and changes of Robs acting on the tile
+    final StatsListener stats;
+    // fields with Robs on round start, row after row, and number of the Robs
+    int[] fields = new int[0];
+    int field_count;
+    int robs_on_start;
+    int[] reserved = new int[0];
+    int reserved_count;
+    int[] dead = new int[0];
+    int dead_count;
+    int[] deferred = new int[0];
+    int deferred_count;
+    int births;
+    // fields whose food was eaten on the tile, taken after every round
+    int[] eaten = new int[0];
+    int eaten_count;
+    // fields that became occupied on the tile, taken between rounds
+    int[] occupied = new int[0];
+    int occupied_count;
+    // instructions performed on the tile, counted if profiling is on
+    final long[] instruction_counts = Profiler.newInstructionCounts();
+    // programs of children born on the tile are mutated in it
+    final ProgramBuffer program_buffer = new ProgramBuffer();
+    // performs generated programs of Robs acting on the tile, set by
+    // the engine
+    PopulationEngine.TileExecutor executor;
+    // processes the tile in a tiled round, set by the engine
+    PopulationEngine.TileTask task;
+    // outcomes of programs executed on the tile, null if they aren't
+    // memoized
+    OutcomeCache outcomes;
+    // memory allocated by the thread processing the tile, if profiling is on
+    long allocated;
+
+    /**
+     * Constructor that creates a tile with given bounds (inclusive).
+     *
+     * @param first_row    : first row of the tile
+     * @param last_row     : last row of the tile
+     * @param first_column : first column of the tile
+     * @param last_column  : last column of the tile
+     * @param phase        : phase of the round in which the tile is processed
+     * @param is_parallel  : is it processed at the same time as other tiles
+     * @param stats        : listener notified about events on the tile
+     */
+    Tile(int first_row, int last_row, int first_column, int last_column,
+         int phase, boolean is_parallel, StatsListener stats) {
+        this.first_row = first_row;
+        this.last_row = last_row;
+        this.first_column = first_column;
+        this.last_column = last_column;
+        this.phase = phase;
+        this.is_parallel = is_parallel;
+        this.stats = stats;
+        random = new RandomStream(0);
+        child_random = new RandomStream(0);
+    }
+
+    /**
+     * Forgets the fields assigned to the tile before the last round.
+     */
+    void clearFields() {
+        field_count = 0;
+        robs_on_start = 0;
+    }
+
+    /**
+     * Assigns a field with Robs on round start to the tile. Fields have to
+     * be assigned row after row.
+     *
+     * @param field : field's index
+     * @param robs  : number of Robs on the field on round start
+     */
+    void addField(int field, int robs) {
+        if (field_count == fields.length) {
+            fields = Arrays.copyOf(fields, 2 * field_count + 16);
+        }
+        fields[field_count++] = field;
+        robs_on_start += robs;
+    }
+
+    /**
+     * Prepares the tile before a round, in which robs_on_start Robs (of
+     * the assigned fields) will act on it.
+     */
+    void prepare() {
+        // every acting Rob can have a child, die or be deferred
+        if (reserved.length < robs_on_start) {
+            reserved = new int[robs_on_start];
+            dead = new int[robs_on_start];
+            deferred = new int[robs_on_start];
+        }
+        reserved_count = robs_on_start;
+        dead_count = 0;
+        deferred_count = 0;
+        births = 0;
+    }
+
+    /**
+     * Remembers a field whose food was eaten on the tile.
+     *
+     * @param field : field's index
+     */
+    void foodEaten(int field) {
+        if (eaten_count == eaten.length) {
+            eaten = Arrays.copyOf(eaten, 2 * eaten_count + 16);
+        }
+        eaten[eaten_count++] = field;
+    }
+
+    /**
+     * Remembers a field that became occupied on the tile.
+     *
+     * @param field : field's index
+     */
+    void fieldOccupied(int field) {
+        if (occupied_count == occupied.length) {
+            occupied = Arrays.copyOf(occupied, 2 * occupied_count + 16);
+        }
+        occupied[occupied_count++] = field;
+    }
+}
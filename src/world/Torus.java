@@ -0,0 +1,128 @@
+package world;
+
+/**
+ * Class representing the shape of a board with "connected" edges
+ * (top <-> bottom, left <-> right). Fields are numbered row after row
+ * (index = row * column_count + column) and for every field the indices of
+ * its 8 neighbours are computed once, so finding a neighbour is a single
+ * array access.
+ * Neighbours are stored clockwise starting from the one above, so the
+ * neighbours without diagonals (top, right, bottom, left) are the ones with
+ * even numbers.
+ *
+ * @author Adam Al-Hosam
+ */
+public class Torus {
+    public static final int TOP = 0;
+    public static final int TOP_RIGHT = 1;
+    public static final int RIGHT = 2;
+    public static final int BOTTOM_RIGHT = 3;
+    public static final int BOTTOM = 4;
+    public static final int BOTTOM_LEFT = 5;
+    public static final int LEFT = 6;
+    public static final int TOP_LEFT = 7;
+
+    private final int row_count;
+    private final int column_count;
+    // 8 neighbours of each field, field's neighbours start at (index << 3)
+    private final int[] neighbours;
+
+    /**
+     * @param row_count    : number of rows
+     * @param column_count : number of columns
+     * @return length of the neighbour table of a board with given
+     * dimensions
+     */
+    private static long tableSize(int row_count, int column_count) {
+        return (long) row_count * column_count * 8;
+    }
+
+    /**
+     * Checks if the neighbour table of a board with given dimensions fits in
+     * an array (a bigger board can only be chunked, see ChunkedCells).
+     *
+     * @param row_count    : number of rows
+     * @param column_count : number of columns
+     * @return true if a Torus can be created for the board
+     */
+    static boolean fits(int row_count, int column_count) {
+        return tableSize(row_count, column_count) <= Integer.MAX_VALUE - 8;
+    }
+
+    /**
+     * Constructor that computes the neighbour table for a board with given
+     * dimensions.
+     *
+     * @param row_count    : number of rows
+     * @param column_count : number of columns
+     */
+    public Torus(int row_count, int column_count) {
+        this.row_count = row_count;
+        this.column_count = column_count;
+        neighbours = new int[(int) tableSize(row_count, column_count)];
+
+        for (int row = 0; row < row_count; row++) {
+            int above = row == 0 ? row_count - 1 : row - 1;
+            int below = row == row_count - 1 ? 0 : row + 1;
+            for (int column = 0; column < column_count; column++) {
+                int left = column == 0 ? column_count - 1 : column - 1;
+                int right = column == column_count - 1 ? 0 : column + 1;
+                int start = getIndex(row, column) << 3;
+
+                neighbours[start + TOP] = getIndex(above, column);
+                neighbours[start + TOP_RIGHT] = getIndex(above, right);
+                neighbours[start + RIGHT] = getIndex(row, right);
+                neighbours[start + BOTTOM_RIGHT] = getIndex(below, right);
+                neighbours[start + BOTTOM] = getIndex(below, column);
+                neighbours[start + BOTTOM_LEFT] = getIndex(below, left);
+                neighbours[start + LEFT] = getIndex(row, left);
+                neighbours[start + TOP_LEFT] = getIndex(above, left);
+            }
+        }
+    }
+
+    /**
+     * @param row    : field's row
+     * @param column : field's column
+     * @return index of the field
+     */
+    public int getIndex(int row, int column) {
+        return row * column_count + column;
+    }
+
+    /**
+     * @return number of fields
+     */
+    public int getFieldCount() {
+        return row_count * column_count;
+    }
+
+    /**
+     * @param index  : field's index
+     * @param number : neighbour's number (TOP, TOP_RIGHT, ..., TOP_LEFT)
+     * @return index of the neighbour
+     */
+    public int getNeighbour(int index, int number) {
+        return neighbours[(index << 3) + number];
+    }
+
+    /**
+     * Returns the neighbour in a Rob's direction.
+     *
+     * @param index     : field's index
+     * @param direction : 0 - top, 1 - right, 2 - bottom, 3 - left
+     * @return index of the neighbour
+     */
+    public int getNeighbourInDirection(int index, int direction) {
+        return neighbours[(index << 3) + (direction << 1)];
+    }
+
+    /**
+     * @param row    : field's row
+     * @param column : field's column
+     * @return coordinates of the field as a string (counted from 1)
+     */
+    public static String coordinates(int row, int column) {
+        return "row: " + (row + 1) + ", column: " + (column + 1);
+    }
+}
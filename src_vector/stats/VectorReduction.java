@@ -0,0 +1,87 @@
+package stats;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Reduction of arrays with the Vector API - the minimum, the maximum and
+ * the sum are kept in vectors of the widest shape the processor supports
+ * and reduced across their lanes at the end. Floats are summed as doubles
+ * and ints as longs (every vector is widened into two halves), so the sums
+ * stay as precise as the ones of StatsTrio's own loops.
+ * Needs --add-modules jdk.incubator.vector to compile and to run, that's
+ * why it's kept out of src (see Reduction).
+ *
+ * @author Adam Al-Hosam
+ */
+public class VectorReduction implements Reduction {
+    private static final VectorSpecies<Float> FLOATS =
+            FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES =
+            DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS =
+            IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS =
+            LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void reduce(float[] values, int count, StatsTrio stats) {
+        FloatVector mins = FloatVector.broadcast(FLOATS,
+                Float.POSITIVE_INFINITY);
+        FloatVector maxes = FloatVector.broadcast(FLOATS,
+                Float.NEGATIVE_INFINITY);
+        DoubleVector sums = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int end = FLOATS.loopBound(count); i < end;
+             i += FLOATS.length()) {
+            FloatVector vector = FloatVector.fromArray(FLOATS, values, i);
+            mins = mins.min(vector);
+            maxes = maxes.max(vector);
+            sums = sums.add((DoubleVector) vector
+                            .convertShape(VectorOperators.F2D, DOUBLES, 0))
+                    .add((DoubleVector) vector
+                            .convertShape(VectorOperators.F2D, DOUBLES, 1));
+        }
+        float min = mins.reduceLanes(VectorOperators.MIN);
+        float max = maxes.reduceLanes(VectorOperators.MAX);
+        double sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < count; i++) {
+            float value = values[i];
+            min = value < min ? value : min;
+            max = value > max ? value : max;
+            sum += value;
+        }
+        stats.update(min, max, sum);
+    }
+
+    @Override
+    public void reduce(int[] values, int count, StatsTrio stats) {
+        IntVector mins = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        IntVector maxes = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+        LongVector sums = LongVector.zero(LONGS);
+        int i = 0;
+        for (int end = INTS.loopBound(count); i < end; i += INTS.length()) {
+            IntVector vector = IntVector.fromArray(INTS, values, i);
+            mins = mins.min(vector);
+            maxes = maxes.max(vector);
+            sums = sums.add((LongVector) vector
+                            .convertShape(VectorOperators.I2L, LONGS, 0))
+                    .add((LongVector) vector
+                            .convertShape(VectorOperators.I2L, LONGS, 1));
+        }
+        int min = mins.reduceLanes(VectorOperators.MIN);
+        int max = maxes.reduceLanes(VectorOperators.MAX);
+        long sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < count; i++) {
+            int value = values[i];
+            min = value < min ? value : min;
+            max = value > max ? value : max;
+            sum += value;
+        }
+        stats.update(min, max, sum);
+    }
+}